@@ -0,0 +1,82 @@
+package com.example.test.batch;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Walks a table in id order, one chunk per query ({@code WHERE id > :lastId ORDER BY id LIMIT :chunkSize}).
+ * <p>
+ * Unlike offset paging there is no count query and no growing {@code OFFSET} scan, so the last chunk of a large
+ * table costs the same as the first, and rows inserted behind the cursor cannot shift later chunks.
+ */
+public class KeysetChunks<T> implements Iterable<List<T>> {
+
+    public static final long START = Long.MIN_VALUE;
+
+    @FunctionalInterface
+    public interface ChunkQuery<T> {
+        /**
+         * Returns up to {@code limit.getPageSize()} rows with an id greater than {@code afterId}, ordered by id.
+         */
+        List<T> fetch(long afterId, Pageable limit);
+    }
+
+    private final ChunkQuery<T> query;
+    private final Function<T, Long> idOf;
+    private final int chunkSize;
+    private final long startAfter;
+
+    public KeysetChunks(ChunkQuery<T> query, Function<T, Long> idOf, int chunkSize) {
+        this(query, idOf, chunkSize, START);
+    }
+
+    /**
+     * @param startAfter id of the last row already processed, e.g. a persisted checkpoint
+     */
+    public KeysetChunks(ChunkQuery<T> query, Function<T, Long> idOf, int chunkSize, long startAfter) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.query = query;
+        this.idOf = idOf;
+        this.chunkSize = chunkSize;
+        this.startAfter = startAfter;
+    }
+
+    @Override
+    public Iterator<List<T>> iterator() {
+        return new Iterator<>() {
+            private long lastId = startAfter;
+            private List<T> next;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !exhausted) {
+                    List<T> chunk = query.fetch(lastId, PageRequest.ofSize(chunkSize));
+                    exhausted = chunk.size() < chunkSize;
+                    if (!chunk.isEmpty()) {
+                        lastId = idOf.apply(chunk.get(chunk.size() - 1));
+                        next = chunk;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<T> chunk = next;
+                next = null;
+                return chunk;
+            }
+        };
+    }
+}
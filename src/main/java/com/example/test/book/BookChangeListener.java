@@ -0,0 +1,27 @@
+package com.example.test.book;
+
+import com.example.test.book.model.Book;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells the {@link BookPageCache} about book changes made through JPA.
+ */
+@Component
+public class BookChangeListener {
+
+    private final BookPageCache bookPageCache;
+
+    public BookChangeListener(BookPageCache bookPageCache) {
+        this.bookPageCache = bookPageCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Book book) {
+        bookPageCache.invalidate();
+    }
+}
@@ -1,16 +1,30 @@
 package com.example.test.book;
 
+import com.example.test.book.bulk.BookImporter;
+import com.example.test.book.bulk.CsvBookRows;
+import com.example.test.book.bulk.NdjsonBookRows;
 import com.example.test.book.model.BookDTO;
+import com.example.test.book.model.BookImportReport;
 import com.example.test.book.model.CreateBookCommand;
+import com.example.test.book.search.BookSearchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/books")
@@ -18,6 +32,10 @@ import org.springframework.web.bind.annotation.*;
 public class BookController {
 
     private final BookService bookService;
+    private final BookSearchService bookSearchService;
+    private final BookImporter bookImporter;
+    private final BookPageCache bookPageCache;
+    private final ObjectMapper objectMapper;
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping
@@ -26,11 +44,49 @@ public class BookController {
         return ResponseEntity.status(HttpStatus.CREATED).body(addedBook);
     }
 
+    /**
+     * Streams books from a CSV body with an {@code author,title,categoryId} header.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public ResponseEntity<BookImportReport> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookImporter.importBooks(
+                new CsvBookRows(new InputStreamReader(body, StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * Streams books from a body with one {@link CreateBookCommand} JSON object per line.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(path = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<BookImportReport> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookImporter.importBooks(
+                new NdjsonBookRows(new InputStreamReader(body, StandardCharsets.UTF_8), objectMapper)));
+    }
+
+    /**
+     * Serves pages from the {@link BookPageCache}; a client sending the page's current ETag in {@code If-None-Match}
+     * gets a 304 with no body.
+     */
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping
-    public ResponseEntity<Page<BookDTO>> getAllBooks(
-            @PageableDefault(page = 0, size = 10) Pageable pageable) {
-        Page<BookDTO> books = bookService.getAllBooks(pageable);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<byte[]> getAllBooks(
+            @PageableDefault(page = 0, size = 10) Pageable pageable, WebRequest request) {
+        BookPageCache.CachedPage books = bookPageCache.get(pageable, () -> bookService.getAllBooks(pageable));
+        if (request.checkNotModified(books.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(books.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(books.body());
+    }
+
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/search")
+    public ResponseEntity<List<BookDTO>> searchBooks(@RequestParam("q") String query,
+                                                     @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(bookSearchService.search(query, limit));
     }
 }
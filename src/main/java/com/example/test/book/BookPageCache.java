@@ -0,0 +1,127 @@
+package com.example.test.book;
+
+import com.example.test.book.model.BookDTO;
+import com.example.test.book.model.BooksImportedEvent;
+import com.example.test.config.BookPageCacheConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized {@code GET /api/books} pages keyed by page number, size and sort, so a client polling an unchanged
+ * page skips the transaction, query, mapping and JSON serialization.
+ * <p>
+ * Pages belong to a catalog-wide version, bumped once a transaction on this node that adds, changes or removes a
+ * book commits (see {@link BookChangeListener}) and after bulk loads; a page of an older version is never served.
+ * Changes made on other nodes do not reach the version, so a cached page is also reloaded once it is older than
+ * {@code app.book.page-cache.max-age}, which bounds how long such a change can go unseen.
+ * <p>
+ * The ETag is a hash of the serialized page, like Spring's {@code ShallowEtagHeaderFilter} computes it, so every
+ * node and every restart gives the same page the same ETag and a client keeps getting 304s behind a load balancer.
+ * <p>
+ * Lookups are published as the {@code book.pages.lookups} counter tagged {@code result=hit|miss}.
+ */
+@Component
+public class BookPageCache {
+
+    private final ObjectMapper objectMapper;
+    private final BookPageCacheConfig config;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Pageable, CachedPage> pages = new ConcurrentHashMap<>();
+
+    public BookPageCache(ObjectMapper objectMapper, BookPageCacheConfig config, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+    }
+
+    /**
+     * Returns the cached page, or loads, serializes and caches it. The version is read before loading, so a page
+     * that raced with a catalog change is cached under the older version and reloaded on the next lookup.
+     */
+    public CachedPage get(Pageable pageable, Supplier<Page<BookDTO>> loader) {
+        long current = version.get();
+        long now = System.nanoTime();
+        CachedPage page = pages.get(pageable);
+        if (page != null && page.version() == current && now - page.expiresAt() < 0) {
+            hits.increment();
+            return page;
+        }
+        misses.increment();
+
+        byte[] body = serialize(loader.get());
+        CachedPage loaded = new CachedPage(current, now + config.getMaxAge().toNanos(), etag(body), body);
+        if (config.isEnabled() && (page != null || pages.size() < config.getMaxPages())) {
+            pages.merge(pageable, loaded, (cached, fresh) -> cached.version() > fresh.version() ? cached : fresh);
+        }
+        return loaded;
+    }
+
+    /**
+     * Moves to a new catalog version now, or once the current transaction commits if there is one.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump();
+                }
+            });
+        } else {
+            bump();
+        }
+    }
+
+    @EventListener
+    public void onBooksImported(BooksImportedEvent event) {
+        invalidate();
+    }
+
+    private void bump() {
+        version.incrementAndGet();
+        pages.clear();
+    }
+
+    private static String etag(byte[] body) {
+        return "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    private byte[] serialize(Page<BookDTO> page) {
+        try {
+            return objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the page of books", e);
+        }
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("book.pages.lookups")
+                .description("Book listing pages answered by the page cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code expiresAt} is on the {@link System#nanoTime()} clock.
+     */
+    public record CachedPage(long version, long expiresAt, String etag, byte[] body) {
+    }
+}
@@ -2,17 +2,47 @@ package com.example.test.book;
 
 
 import com.example.test.book.model.Book;
+import com.example.test.book.model.BookSearchEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
 
-    @Query("SELECT b FROM Book b WHERE b.addedDate = :addedDate")
-    Page<Book> findBooksAddedToday(@Param("addedDate") LocalDate addedDate, Pageable pageable);
+    /**
+     * The catalog listing; page contents and counts are kept in the query cache until the books table changes.
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Book.CATALOG_QUERY_REGION)})
+    Page<Book> findAll(Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.addedDate BETWEEN :from AND :to AND b.id > :lastId ORDER BY b.id")
+    List<Book> findAddedBetweenAfter(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                     @Param("lastId") long lastId, Pageable limit);
+
+    @Query("SELECT b FROM Book b JOIN FETCH b.category WHERE b.id IN :ids ORDER BY b.id")
+    List<Book> findWithCategoryByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.test.book.model.BookSearchEntry(b.id, b.title, b.author, c.id, b.addedDate) " +
+            "FROM Book b LEFT JOIN b.category c WHERE b.id > :lastId ORDER BY b.id")
+    List<BookSearchEntry> findSearchEntriesAfter(@Param("lastId") long lastId, Pageable limit);
+
+    @Query("SELECT b.id FROM Book b WHERE b.addedDate >= :from AND b.id > :lastId ORDER BY b.id")
+    List<Long> findIdsAddedSinceAfter(@Param("from") LocalDate from, @Param("lastId") long lastId, Pageable limit);
+
+    @Query("SELECT new com.example.test.book.model.BookSearchEntry(b.id, b.title, b.author, c.id, b.addedDate) " +
+            "FROM Book b LEFT JOIN b.category c WHERE b.id IN :ids")
+    List<BookSearchEntry> findSearchEntriesByIds(@Param("ids") Collection<Long> ids);
 
 }
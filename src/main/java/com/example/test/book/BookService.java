@@ -2,10 +2,12 @@ package com.example.test.book;
 
 
 import com.example.test.book.model.Book;
+import com.example.test.book.model.BookAddedEvent;
 import com.example.test.book.model.BookDTO;
 import com.example.test.book.model.BookMapper;
 import com.example.test.book.model.CreateBookCommand;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -19,6 +21,7 @@ public class BookService {
 
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public Page<BookDTO> getAllBooks(Pageable pageable) {
@@ -32,6 +35,7 @@ public class BookService {
         Book newBook = bookMapper.fromCreateCommand(command);
         newBook.setAddedDate(LocalDate.now());
         newBook = bookRepository.save(newBook);
+        eventPublisher.publishEvent(new BookAddedEvent(newBook.getId()));
         return bookMapper.toDTO(newBook);
     }
 
@@ -0,0 +1,197 @@
+package com.example.test.book.bulk;
+
+import com.example.test.batch.SequenceIds;
+import com.example.test.book.model.Book;
+import com.example.test.book.model.BookImportReport;
+import com.example.test.book.model.BooksImportedEvent;
+import com.example.test.book.model.CreateBookCommand;
+import com.example.test.category.BookCategoryRegistry;
+import com.example.test.config.BookImportConfig;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads books in bulk, bypassing the persistence context: rows are validated as they are read, categories against
+ * the {@link BookCategoryRegistry}, and written with JDBC batch inserts of {@code app.book.import.batch-size}, each
+ * batch in its own transaction, with ids drawn in blocks from the books sequence.
+ * <p>
+ * A row whose author and title already exist, in the database or earlier in the same file, is skipped by the
+ * insert itself ({@code WHERE NOT EXISTS}) and reported as a duplicate, so one bad row never fails the load.
+ * If a batch still fails, e.g. because of a concurrent {@code addBook}, its rows are retried one by one.
+ */
+@Slf4j
+@Service
+public class BookImporter {
+
+    private static final String INSERT = "INSERT INTO books (id, author, title, category_id, added_date, version) "
+            + "SELECT ?, ?, ?, ?, ?, 0 FROM DUAL "
+            + "WHERE NOT EXISTS (SELECT 1 FROM books WHERE author = ? AND title = ?)";
+
+    // the narrower of schema.sql and the column Hibernate generates
+    private static final int MAX_AUTHOR_LENGTH = 100;
+    private static final int MAX_TITLE_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookCategoryRegistry bookCategoryRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final BookImportConfig config;
+    private final SequenceIds ids;
+
+    public BookImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                        BookCategoryRegistry bookCategoryRegistry,
+                        ApplicationEventPublisher eventPublisher, EntityManagerFactory entityManagerFactory,
+                        BookImportConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookCategoryRegistry = bookCategoryRegistry;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.config = config;
+        this.ids = new SequenceIds(jdbcTemplate, Book.ID_SEQUENCE, Book.ID_ALLOCATION_SIZE);
+    }
+
+    public BookImportReport importBooks(BookRows rows) throws IOException {
+        long start = System.nanoTime();
+        BookImportReport report = new BookImportReport(config.getMaxReportedErrors());
+        LocalDate today = LocalDate.now();
+
+        List<BookRow> batch = new ArrayList<>(config.getBatchSize());
+        for (BookRow row = rows.next(); row != null; row = rows.next()) {
+            String error = row.error() != null ? row.error() : validate(row.command());
+            if (error != null) {
+                report.recordRejected(row.line(), error);
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == config.getBatchSize()) {
+                write(batch, today, report);
+                batch = new ArrayList<>(config.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, today, report);
+        }
+
+        log.info("Imported {} books in {} ms: duplicates={}, rejected={}", report.getImported(),
+                (System.nanoTime() - start) / 1_000_000, report.getDuplicates(), report.getRejected());
+        return report;
+    }
+
+    /**
+     * The {@link CreateBookCommand} constraints and the column limits, checked up front so that a batch only fails
+     * on conflicts with concurrent writers.
+     */
+    private String validate(CreateBookCommand command) {
+        if (command.getAuthor() == null || command.getAuthor().isBlank()) {
+            return "Author must not be blank";
+        }
+        if (command.getTitle() == null || command.getTitle().isBlank()) {
+            return "Title must not be blank";
+        }
+        if (command.getCategoryId() == null) {
+            return "Category ID must not be null";
+        }
+        if (command.getAuthor().length() > MAX_AUTHOR_LENGTH) {
+            return "Author must be at most " + MAX_AUTHOR_LENGTH + " characters";
+        }
+        if (command.getTitle().length() > MAX_TITLE_LENGTH) {
+            return "Title must be at most " + MAX_TITLE_LENGTH + " characters";
+        }
+        if (!bookCategoryRegistry.contains(command.getCategoryId())) {
+            return "Category with ID " + command.getCategoryId() + " does not exist.";
+        }
+        return null;
+    }
+
+    private void write(List<BookRow> batch, LocalDate today, BookImportReport report) {
+        long[] bookIds = new long[batch.size()];
+        for (int i = 0; i < bookIds.length; i++) {
+            bookIds[i] = ids.next();
+        }
+
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT,
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            bind(ps, bookIds[i], batch.get(i).command(), today);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return batch.size();
+                        }
+                    }));
+        } catch (DataAccessException e) {
+            log.debug("Batch insert failed, retrying its {} rows one by one: {}", batch.size(), e.getMessage());
+            counts = writeOneByOne(batch, bookIds, today, report);
+        }
+
+        List<Long> imported = new ArrayList<>(batch.size());
+        for (int i = 0; i < counts.length; i++) {
+            CreateBookCommand command = batch.get(i).command();
+            if (counts[i] == 1) {
+                imported.add(bookIds[i]);
+            } else if (counts[i] == 0) {
+                report.recordDuplicate(batch.get(i).line(), command.getAuthor(), command.getTitle());
+            }
+        }
+        report.recordImported(imported.size());
+        if (!imported.isEmpty()) {
+            // Hibernate did not see the inserts, so cached catalog pages would not know about them
+            entityManagerFactory.getCache().unwrap(Cache.class).evictQueryRegion(Book.CATALOG_QUERY_REGION);
+            eventPublisher.publishEvent(new BooksImportedEvent(imported));
+        }
+    }
+
+    /**
+     * Returns the insert count of every row, or -1 for a row rejected by the database and already reported.
+     */
+    private int[] writeOneByOne(List<BookRow> batch, long[] bookIds, LocalDate today, BookImportReport report) {
+        int[] counts = new int[batch.size()];
+        for (int i = 0; i < counts.length; i++) {
+            long bookId = bookIds[i];
+            CreateBookCommand command = batch.get(i).command();
+            try {
+                counts[i] = jdbcTemplate.update(INSERT, ps -> bind(ps, bookId, command, today));
+            } catch (DuplicateKeyException e) {
+                counts[i] = 0;
+            } catch (DataAccessException e) {
+                report.recordRejected(batch.get(i).line(), e.getMostSpecificCause().getMessage());
+                counts[i] = -1;
+            }
+        }
+        return counts;
+    }
+
+    private static void bind(PreparedStatement ps, long bookId, CreateBookCommand command, LocalDate today)
+            throws SQLException {
+        ps.setLong(1, bookId);
+        ps.setString(2, command.getAuthor());
+        ps.setString(3, command.getTitle());
+        ps.setLong(4, command.getCategoryId());
+        ps.setDate(5, Date.valueOf(today));
+        ps.setString(6, command.getAuthor());
+        ps.setString(7, command.getTitle());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.test.book.bulk;
+
+import com.example.test.book.model.CreateBookCommand;
+
+/**
+ * One record of an import file: the parsed command, or why it could not be parsed.
+ *
+ * @param line line number of the record in the file, starting at 1
+ */
+public record BookRow(long line, CreateBookCommand command, String error) {
+
+    static BookRow of(long line, CreateBookCommand command) {
+        return new BookRow(line, command, null);
+    }
+
+    static BookRow rejected(long line, String error) {
+        return new BookRow(line, null, error);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.test.book.bulk;
+
+import java.io.IOException;
+
+/**
+ * A stream of import records, read one at a time so a file of any size is never held in memory.
+ */
+public interface BookRows {
+
+    /**
+     * The next record, or {@code null} at the end of the input.
+     */
+    BookRow next() throws IOException;
+}
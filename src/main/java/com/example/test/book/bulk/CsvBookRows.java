@@ -0,0 +1,108 @@
+package com.example.test.book.bulk;
+
+import com.example.test.book.model.CreateBookCommand;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads books from RFC 4180 CSV: a header naming the {@code author}, {@code title} and {@code categoryId} columns
+ * in any order, then one book per record. Quoted fields may contain commas, doubled quotes and line breaks;
+ * values are trimmed.
+ */
+public class CsvBookRows implements BookRows {
+
+    private final BufferedReader reader;
+    private final int authorColumn;
+    private final int titleColumn;
+    private final int categoryColumn;
+    private final int columns;
+    private long line = 1;
+
+    public CsvBookRows(Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("The CSV is empty, a header row is required.");
+        }
+        List<String> names = header.stream()
+                .map(name -> name.replace("\uFEFF", "").replace("_", "").toLowerCase(Locale.ROOT))
+                .toList();
+        this.authorColumn = names.indexOf("author");
+        this.titleColumn = names.indexOf("title");
+        this.categoryColumn = names.indexOf("categoryid");
+        this.columns = names.size();
+        if (authorColumn < 0 || titleColumn < 0 || categoryColumn < 0) {
+            throw new IllegalArgumentException("The CSV header must name the author, title and categoryId columns.");
+        }
+    }
+
+    @Override
+    public BookRow next() throws IOException {
+        long start;
+        List<String> fields;
+        do {
+            start = line;
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+        if (fields.size() != columns) {
+            return BookRow.rejected(start, "Expected " + columns + " fields but found " + fields.size() + ".");
+        }
+        String category = fields.get(categoryColumn);
+        Long categoryId;
+        try {
+            categoryId = category.isEmpty() ? null : Long.valueOf(category);
+        } catch (NumberFormatException e) {
+            return BookRow.rejected(start, "Category ID must be a number: '" + category + "'.");
+        }
+        return BookRow.of(start, new CreateBookCommand(fields.get(authorColumn), fields.get(titleColumn), categoryId));
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (; c != -1; c = reader.read()) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
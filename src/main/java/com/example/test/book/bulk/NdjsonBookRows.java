@@ -0,0 +1,43 @@
+package com.example.test.book.bulk;
+
+import com.example.test.book.model.CreateBookCommand;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads books from newline-delimited JSON, one {@link CreateBookCommand} object per line; blank lines are skipped.
+ */
+public class NdjsonBookRows implements BookRows {
+
+    private final BufferedReader reader;
+    private final ObjectReader json;
+    private long line;
+
+    public NdjsonBookRows(Reader reader, ObjectMapper objectMapper) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.json = objectMapper.readerFor(CreateBookCommand.class);
+    }
+
+    @Override
+    public BookRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        try {
+            return BookRow.of(line, json.readValue(text));
+        } catch (JsonProcessingException e) {
+            return BookRow.rejected(line, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+}
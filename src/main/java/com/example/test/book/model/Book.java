@@ -1,21 +1,43 @@
 package com.example.test.book.model;
 
+import com.example.test.book.BookChangeListener;
 import com.example.test.category.BookCategory;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "books", uniqueConstraints = {@UniqueConstraint(columnNames = {"author", "title"})})
+@Table(name = "books", uniqueConstraints = {@UniqueConstraint(columnNames = {"author", "title"})},
+        indexes = {@Index(name = "idx_books_added_date_id", columnList = "added_date, id")})
+@EntityListeners(BookChangeListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
 @Getter
 @Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
+    public static final String CACHE_REGION = "books";
+    /**
+     * Query cache region of the paged catalog; writes that bypass Hibernate must evict it.
+     */
+    public static final String CATALOG_QUERY_REGION = "book-catalog";
+
+    /**
+     * Ids come from this sequence in blocks of {@link #ID_ALLOCATION_SIZE} (pooled-lo: a sequence value {@code v}
+     * reserves {@code v .. v + ID_ALLOCATION_SIZE - 1}), so JDBC writers can draw blocks of their own next to
+     * Hibernate and inserts can be batched.
+     */
+    public static final String ID_SEQUENCE = "books_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String author;
@@ -0,0 +1,7 @@
+package com.example.test.book.model;
+
+/**
+ * Published by {@link com.example.test.book.BookService#addBook} and delivered once the book is committed.
+ */
+public record BookAddedEvent(Long bookId) {
+}
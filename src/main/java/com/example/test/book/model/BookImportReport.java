@@ -0,0 +1,47 @@
+package com.example.test.book.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Every rejected or duplicate row is counted; the first {@code maxErrors} of them are
+ * listed with their line number.
+ */
+@Getter
+public class BookImportReport {
+
+    private long imported;
+    private long duplicates;
+    private long rejected;
+    private final List<RowError> errors = new ArrayList<>();
+    private final transient int maxErrors;
+
+    public BookImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void recordImported(int count) {
+        imported += count;
+    }
+
+    public void recordDuplicate(long line, String author, String title) {
+        duplicates++;
+        addError(line, "A book by '" + author + "' titled '" + title + "' already exists.");
+    }
+
+    public void recordRejected(long line, String reason) {
+        rejected++;
+        addError(line, reason);
+    }
+
+    private void addError(long line, String reason) {
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(line, reason));
+        }
+    }
+
+    public record RowError(long line, String reason) {
+    }
+}
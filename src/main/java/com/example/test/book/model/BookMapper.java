@@ -1,21 +1,22 @@
 package com.example.test.book.model;
 
-import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRegistry;
+import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 
 @Component
+@AllArgsConstructor
 public class BookMapper {
 
+    private final BookCategoryRegistry bookCategoryRegistry;
+
     public Book fromCreateCommand(CreateBookCommand command) {
         Book book = new Book();
         book.setAuthor(command.getAuthor());
         book.setTitle(command.getTitle());
-
-        BookCategory category = new BookCategory();
-        category.setId(command.getCategoryId());
-        book.setCategory(category);
+        book.setCategory(bookCategoryRegistry.get(command.getCategoryId()));
         book.setAddedDate(LocalDate.now());
 
         return book;
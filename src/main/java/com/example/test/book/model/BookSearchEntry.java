@@ -0,0 +1,9 @@
+package com.example.test.book.model;
+
+import java.time.LocalDate;
+
+/**
+ * The columns of a book the search index keeps, read without loading the entity.
+ */
+public record BookSearchEntry(Long id, String title, String author, Long categoryId, LocalDate addedDate) {
+}
@@ -0,0 +1,10 @@
+package com.example.test.book.model;
+
+import java.util.List;
+
+/**
+ * Published by {@link com.example.test.book.bulk.BookImporter} after each committed batch. Unlike
+ * {@link BookAddedEvent} it does not trigger instant digests; imported books go out with the daily digest.
+ */
+public record BooksImportedEvent(List<Long> bookIds) {
+}
@@ -0,0 +1,474 @@
+package com.example.test.book.search;
+
+import com.example.test.book.model.BookDTO;
+import com.example.test.book.model.BookSearchEntry;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over book titles and authors.
+ * <p>
+ * Titles and authors are split into lower-case words without diacritics. Every word maps to a postings list of
+ * document numbers in ascending order; documents are numbered in the order they are added and their fields are
+ * kept in parallel arrays, so a query never touches the database. Terms are kept in sorted maps, which makes prefix
+ * matching ("tolk" finds "tolkien") a range scan over the dictionary instead of an n-gram index several times the
+ * size of the catalog.
+ * <p>
+ * Every query word must match the title or the author, exactly or as a prefix. A hit scores the sum over the query
+ * words of the best matching term's idf, weighted by field (title above author) and discounted for prefix matches;
+ * ties go to the most recently added book.
+ */
+public class BookSearchIndex {
+
+    private static final float TITLE_WEIGHT = 2.0f;
+    private static final float AUTHOR_WEIGHT = 1.0f;
+    private static final float PREFIX_WEIGHT = 0.4f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_CATEGORY = Long.MIN_VALUE;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score).thenComparingInt(Hit::doc);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> titleTerms = new TreeMap<>();
+    private final NavigableMap<String, Postings> authorTerms = new TreeMap<>();
+    private final Map<String, Integer> authorCodes = new HashMap<>();
+    private final List<String> authorNames = new ArrayList<>();
+
+    private long[] bookIds = new long[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private int[] authors = new int[INITIAL_CAPACITY];
+    private long[] categoryIds = new long[INITIAL_CAPACITY];
+    private int[] addedDays = new int[INITIAL_CAPACITY];
+    private int size;
+    // bookIds[0..sortedSize) is ascending, which holds for everything loaded in id order
+    private int sortedSize;
+    // ids added after the ascending run, e.g. books of other nodes picked up late
+    private final Set<Long> unsortedBookIds = new HashSet<>();
+
+    /**
+     * Adds the book unless it is already indexed.
+     */
+    public boolean add(BookSearchEntry entry) {
+        lock.writeLock().lock();
+        try {
+            if (containsBook(entry.id())) {
+                return false;
+            }
+            if (size == bookIds.length) {
+                grow();
+            }
+            int doc = size;
+            if (sortedSize == doc && (doc == 0 || entry.id() > bookIds[doc - 1])) {
+                sortedSize++;
+            } else {
+                unsortedBookIds.add(entry.id());
+            }
+            bookIds[doc] = entry.id();
+            titles[doc] = entry.title();
+            authors[doc] = authorCode(entry.author());
+            categoryIds[doc] = entry.categoryId() == null ? NO_CATEGORY : entry.categoryId();
+            addedDays[doc] = entry.addedDate() == null ? NO_DATE : (int) entry.addedDate().toEpochDay();
+            size++;
+
+            for (String word : tokenize(entry.title())) {
+                titleTerms.computeIfAbsent(word, key -> new Postings()).add(doc);
+            }
+            for (String word : tokenize(entry.author())) {
+                authorTerms.computeIfAbsent(word, key -> new Postings()).add(doc);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long bookId) {
+        lock.readLock().lock();
+        try {
+            return containsBook(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best {@code limit} books matching every word of {@code query}, best first.
+     */
+    public List<BookDTO> search(String query, int limit) {
+        Set<String> words = new LinkedHashSet<>(tokenize(query));
+        if (words.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<WordMatch> matches = new ArrayList<>(words.size());
+            for (String word : words) {
+                WordMatch match = match(word);
+                if (match.lists.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(match);
+            }
+            // drive the search from the rarest word and probe the others
+            matches.sort(Comparator.comparingLong(WordMatch::postings));
+            WordMatch driver = matches.get(0);
+            List<WordMatch> others = matches.subList(1, matches.size());
+            others.forEach(WordMatch::startProbing);
+
+            TopHits top = new TopHits(others, limit);
+            driver.forEachDocDescending(top);
+
+            List<Hit> hits = new ArrayList<>(top.hits);
+            hits.sort(WORST_FIRST.reversed());
+            List<BookDTO> books = new ArrayList<>(hits.size());
+            hits.forEach(hit -> books.add(toDTO(hit.doc())));
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int terms() {
+        lock.readLock().lock();
+        try {
+            return titleTerms.size() + authorTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                // the only Polish letter without a decomposition
+                .replace('ł', 'l');
+        List<String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(folded)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private WordMatch match(String word) {
+        WordMatch match = new WordMatch();
+        match.add(titleTerms.get(word), TITLE_WEIGHT);
+        match.add(authorTerms.get(word), AUTHOR_WEIGHT);
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            addPrefixMatches(match, titleTerms, word, TITLE_WEIGHT * PREFIX_WEIGHT);
+            addPrefixMatches(match, authorTerms, word, AUTHOR_WEIGHT * PREFIX_WEIGHT);
+        }
+        return match;
+    }
+
+    private static void addPrefixMatches(WordMatch match, NavigableMap<String, Postings> terms, String prefix,
+                                         float weight) {
+        int expansions = 0;
+        for (Map.Entry<String, Postings> term : terms.subMap(prefix, false, prefix + Character.MAX_VALUE, false)
+                .entrySet()) {
+            if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                return;
+            }
+            match.add(term.getValue(), weight);
+        }
+    }
+
+    private boolean containsBook(long bookId) {
+        return Arrays.binarySearch(bookIds, 0, sortedSize, bookId) >= 0 || unsortedBookIds.contains(bookId);
+    }
+
+    private int authorCode(String author) {
+        return authorCodes.computeIfAbsent(author, key -> {
+            authorNames.add(key);
+            return authorNames.size() - 1;
+        });
+    }
+
+    private void grow() {
+        int capacity = bookIds.length * 2;
+        bookIds = Arrays.copyOf(bookIds, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        addedDays = Arrays.copyOf(addedDays, capacity);
+    }
+
+    private BookDTO toDTO(int doc) {
+        return BookDTO.builder()
+                .id(bookIds[doc])
+                .title(titles[doc])
+                .author(authorNames.get(authors[doc]))
+                .categoryId(categoryIds[doc] == NO_CATEGORY ? null : categoryIds[doc])
+                .addedDate(addedDays[doc] == NO_DATE ? null : LocalDate.ofEpochDay(addedDays[doc]))
+                .build();
+    }
+
+    private float idf(Postings postings) {
+        return (float) Math.log(1 + (double) size / postings.size);
+    }
+
+    private record Hit(int doc, float score) {
+    }
+
+    private interface DocVisitor {
+        /**
+         * Whether a document whose driving word scores {@code score} could still make it into the results;
+         * once this is false for a score it stays false.
+         */
+        boolean competitive(float score);
+
+        void visit(int doc, float score);
+    }
+
+    /**
+     * The best {@code limit} hits among documents visited newest first. A later document therefore only displaces
+     * a kept hit with a strictly lower score, which lets whole postings lists drop out of the search once their
+     * weight, plus the best the other words can add, no longer beats the worst kept hit.
+     */
+    private static class TopHits implements DocVisitor {
+        private final List<WordMatch> others;
+        private final int limit;
+        private final PriorityQueue<Hit> hits = new PriorityQueue<>(WORST_FIRST);
+
+        TopHits(List<WordMatch> others, int limit) {
+            this.others = others;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean competitive(float score) {
+            if (hits.size() < limit) {
+                return true;
+            }
+            // summed in the order visit() adds up a hit, so rounding cannot put a hit above its bound
+            float bound = score;
+            for (WordMatch other : others) {
+                bound += other.maxWeight;
+            }
+            return bound > hits.peek().score();
+        }
+
+        @Override
+        public void visit(int doc, float score) {
+            float total = score;
+            for (WordMatch other : others) {
+                float otherScore = other.scoreOf(doc);
+                if (otherScore == 0) {
+                    return;
+                }
+                total += otherScore;
+            }
+            if (hits.size() < limit) {
+                hits.add(new Hit(doc, total));
+            } else if (total > hits.peek().score()) {
+                hits.poll();
+                hits.add(new Hit(doc, total));
+            }
+        }
+    }
+
+    /**
+     * Ascending document numbers; documents are only ever appended, so adding keeps the order.
+     */
+    private static class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+            }
+            docs[size++] = doc;
+        }
+
+        /**
+         * The position of the last document not above {@code doc}, searching down from {@code from}, or -1.
+         * Gallops before the binary search, so probing in descending order costs the log of the distance moved.
+         */
+        int seekDown(int from, int doc) {
+            if (from < 0 || docs[from] <= doc) {
+                return from;
+            }
+            int high = from;
+            int step = 1;
+            int low = high - step;
+            while (low >= 0 && docs[low] > doc) {
+                high = low;
+                step <<= 1;
+                low = high - step;
+            }
+            int found = Arrays.binarySearch(docs, Math.max(low, 0), high, doc);
+            return found >= 0 ? found : -found - 2;
+        }
+    }
+
+    /**
+     * The terms one query word matches, each with the score it contributes.
+     */
+    private class WordMatch {
+        // documents per window of the union of several postings lists
+        private static final int WINDOW = 4096;
+
+        private final List<Postings> lists = new ArrayList<>();
+        private float[] weights = new float[4];
+        private float maxWeight;
+        private long postings;
+        private int[] probeOrder;
+        private int[] probePositions;
+
+        void add(Postings list, float fieldWeight) {
+            if (list == null) {
+                return;
+            }
+            if (lists.size() == weights.length) {
+                weights = Arrays.copyOf(weights, weights.length * 2);
+            }
+            weights[lists.size()] = fieldWeight * idf(list);
+            maxWeight = Math.max(maxWeight, weights[lists.size()]);
+            lists.add(list);
+            postings += list.size;
+        }
+
+        long postings() {
+            return postings;
+        }
+
+        /**
+         * Prepares {@link #scoreOf} for documents probed in descending order: every list keeps a cursor that only
+         * moves down, and lists are tried heaviest first, so the first one containing the document gives its score.
+         */
+        void startProbing() {
+            probeOrder = new int[lists.size()];
+            probePositions = new int[lists.size()];
+            Integer[] order = new Integer[lists.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(weights[b], weights[a]));
+            for (int i = 0; i < order.length; i++) {
+                probeOrder[i] = order[i];
+                probePositions[order[i]] = lists.get(order[i]).size - 1;
+            }
+        }
+
+        float scoreOf(int doc) {
+            for (int list : probeOrder) {
+                Postings candidates = lists.get(list);
+                int position = candidates.seekDown(probePositions[list], doc);
+                probePositions[list] = position;
+                if (position >= 0 && candidates.docs[position] == doc) {
+                    return weights[list];
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Visits every matching document the visitor still finds competitive once, in descending order, with the
+         * best weight among the lists that contain it. Several lists are merged a window of documents at a time:
+         * the window's postings of every list are scattered into a bitset and a score array, which are then read
+         * back from the top, so the cost is linear in the postings however many terms a prefix expands to. Lists
+         * whose weight is no longer competitive are left out of later windows.
+         */
+        void forEachDocDescending(DocVisitor visitor) {
+            if (lists.size() == 1) {
+                Postings list = lists.get(0);
+                for (int i = list.size - 1; i >= 0 && visitor.competitive(weights[0]); i--) {
+                    visitor.visit(list.docs[i], weights[0]);
+                }
+                return;
+            }
+
+            int[] positions = new int[lists.size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = lists.get(i).size - 1;
+            }
+            float[] scores = new float[WINDOW];
+            long[] seen = new long[WINDOW / Long.SIZE];
+            while (true) {
+                int highest = -1;
+                for (int i = 0; i < positions.length; i++) {
+                    if (positions[i] >= 0 && !visitor.competitive(weights[i])) {
+                        positions[i] = -1;
+                    }
+                    if (positions[i] >= 0) {
+                        highest = Math.max(highest, lists.get(i).docs[positions[i]]);
+                    }
+                }
+                if (highest < 0) {
+                    return;
+                }
+                int windowStart = highest - highest % WINDOW;
+
+                for (int i = 0; i < positions.length; i++) {
+                    int[] docs = lists.get(i).docs;
+                    float weight = weights[i];
+                    int position = positions[i];
+                    for (; position >= 0 && docs[position] >= windowStart; position--) {
+                        int slot = docs[position] - windowStart;
+                        long bit = 1L << slot;
+                        if ((seen[slot >>> 6] & bit) == 0) {
+                            seen[slot >>> 6] |= bit;
+                            scores[slot] = weight;
+                        } else if (weight > scores[slot]) {
+                            scores[slot] = weight;
+                        }
+                    }
+                    positions[i] = position;
+                }
+
+                for (int word = seen.length - 1; word >= 0; word--) {
+                    long bits = seen[word];
+                    seen[word] = 0;
+                    while (bits != 0) {
+                        int bit = Long.SIZE - 1 - Long.numberOfLeadingZeros(bits);
+                        bits &= ~(1L << bit);
+                        int slot = word * Long.SIZE + bit;
+                        if (visitor.competitive(scores[slot])) {
+                            visitor.visit(windowStart + slot, scores[slot]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
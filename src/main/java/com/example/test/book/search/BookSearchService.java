@@ -0,0 +1,172 @@
+package com.example.test.book.search;
+
+import com.example.test.batch.KeysetChunks;
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.BookAddedEvent;
+import com.example.test.book.model.BookDTO;
+import com.example.test.book.model.BookSearchEntry;
+import com.example.test.book.model.BooksImportedEvent;
+import com.example.test.config.BookSearchConfig;
+import com.example.test.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Full-text search over book titles and authors, answered from a {@link BookSearchIndex} held in memory.
+ * <p>
+ * The index is loaded from the database in id order once the application is ready and then follows committed
+ * {@code addBook} calls and bulk imports. Books added while a build is running are buffered and indexed when it
+ * completes, so none is lost between the snapshot and the switch to the new index.
+ * <p>
+ * Books committed on other nodes never reach these listeners, so {@link #catchUp} periodically indexes whatever
+ * the database has and the index lacks.
+ */
+@Slf4j
+@Service
+public class BookSearchService {
+
+    private static final String INDEX_NOT_READY = "The book search index is still being built, please try again later.";
+
+    private final BookRepository bookRepository;
+    private final BookSearchConfig config;
+    private final Object buildLock = new Object();
+
+    private volatile BookSearchIndex index;
+    private boolean building;
+    private List<Long> addedWhileBuilding = new ArrayList<>();
+
+    public BookSearchService(BookRepository bookRepository, BookSearchConfig config) {
+        this.bookRepository = bookRepository;
+        this.config = config;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (config.isBuildOnStartup()) {
+            new CustomizableThreadFactory("book-search-index-").newThread(this::rebuild).start();
+        }
+    }
+
+    /**
+     * Loads a fresh index from the database, on the calling thread, and switches searches over to it.
+     */
+    public void rebuild() {
+        synchronized (buildLock) {
+            synchronized (this) {
+                building = true;
+            }
+            long start = System.nanoTime();
+            BookSearchIndex fresh = new BookSearchIndex();
+            List<Long> missed;
+            boolean built = false;
+            try {
+                KeysetChunks<BookSearchEntry> entries = new KeysetChunks<>(bookRepository::findSearchEntriesAfter,
+                        BookSearchEntry::id, config.getBuildChunkSize());
+                for (List<BookSearchEntry> chunk : entries) {
+                    chunk.forEach(fresh::add);
+                }
+                built = true;
+            } finally {
+                synchronized (this) {
+                    if (built) {
+                        index = fresh;
+                    }
+                    building = false;
+                    missed = addedWhileBuilding;
+                    addedWhileBuilding = new ArrayList<>();
+                }
+                if (!missed.isEmpty()) {
+                    index(missed);
+                }
+            }
+            log.info("Indexed {} books ({} terms) for search in {} ms",
+                    fresh.size(), fresh.terms(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Indexes the books added since yesterday that the index does not have yet. Every node draws book ids in blocks
+     * of its own, so other nodes' books do not arrive in id order and no id watermark would be safe; instead the
+     * ids of the last two days are read from the {@code (added_date, id)} index and only the missing books are
+     * loaded. Skipped while a build is running, which reads everything committed anyway.
+     */
+    @Scheduled(fixedDelayString = "${app.book.search.catch-up-interval:60000}")
+    public int catchUp() {
+        BookSearchIndex current;
+        synchronized (this) {
+            current = building ? null : index;
+        }
+        if (current == null) {
+            return 0;
+        }
+
+        LocalDate from = LocalDate.now().minusDays(1);
+        KeysetChunks<Long> ids = new KeysetChunks<>(
+                (lastId, limit) -> bookRepository.findIdsAddedSinceAfter(from, lastId, limit), id -> id,
+                config.getBuildChunkSize());
+        int indexed = 0;
+        for (List<Long> chunk : ids) {
+            List<Long> missing = chunk.stream().filter(id -> !current.contains(id)).toList();
+            if (!missing.isEmpty()) {
+                for (BookSearchEntry entry : bookRepository.findSearchEntriesByIds(missing)) {
+                    if (current.add(entry)) {
+                        indexed++;
+                    }
+                }
+            }
+        }
+        if (indexed > 0) {
+            log.info("Indexed {} books added on other nodes", indexed);
+        }
+        return indexed;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookAdded(BookAddedEvent event) {
+        indexOrDefer(List.of(event.bookId()));
+    }
+
+    @EventListener
+    public void onBooksImported(BooksImportedEvent event) {
+        indexOrDefer(event.bookIds());
+    }
+
+    public List<BookDTO> search(String query, int limit) {
+        if (limit < 1 || limit > config.getMaxResults()) {
+            throw new IllegalArgumentException("The limit must be between 1 and " + config.getMaxResults() + ".");
+        }
+        BookSearchIndex current = index;
+        if (current == null) {
+            throw new ServiceUnavailableException(INDEX_NOT_READY);
+        }
+        return current.search(query, limit);
+    }
+
+    private void indexOrDefer(Collection<Long> bookIds) {
+        synchronized (this) {
+            if (building) {
+                addedWhileBuilding.addAll(bookIds);
+                return;
+            }
+        }
+        index(bookIds);
+    }
+
+    private void index(Collection<Long> bookIds) {
+        BookSearchIndex current = index;
+        if (current != null) {
+            bookRepository.findSearchEntriesByIds(bookIds).forEach(current::add);
+        }
+    }
+}
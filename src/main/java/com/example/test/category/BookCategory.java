@@ -2,15 +2,22 @@ package com.example.test.category;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "book_categories")
+@EntityListeners(BookCategoryChangeListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = BookCategory.CACHE_REGION)
 @Getter
 @Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookCategory {
+    public static final String CACHE_REGION = "book-categories";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,28 @@
+package com.example.test.category;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells the {@link BookCategoryRegistry} about category changes made through JPA. The registry is looked up lazily
+ * because it depends on the repository, which needs this listener to be built first.
+ */
+@Component
+public class BookCategoryChangeListener {
+
+    private final ObjectProvider<BookCategoryRegistry> registry;
+
+    public BookCategoryChangeListener(ObjectProvider<BookCategoryRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(BookCategory category) {
+        registry.ifAvailable(BookCategoryRegistry::invalidate);
+    }
+}
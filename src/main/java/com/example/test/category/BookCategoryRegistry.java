@@ -0,0 +1,140 @@
+package com.example.test.category;
+
+import com.example.test.config.BookCategoryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * All book categories, held in memory: resolving or validating a category id costs no database round trip.
+ * <p>
+ * The table is loaded when the application is ready and reloaded after a transaction that persisted, updated or
+ * removed a category commits (see {@link BookCategoryChangeListener}). Writes that bypass the entity, such as bulk
+ * deletes and JDBC inserts, are picked up by the reload that follows a lookup of an unknown id; those reloads happen
+ * at most once per {@code app.book.categories.miss-reload-interval}, and unknown ids in between are answered from
+ * memory.
+ * <p>
+ * Every caller gets the same detached {@link BookCategory} instance per id, to be used as a reference only and
+ * never modified. Lookups are published as the {@code book.categories.lookups} counter tagged
+ * {@code result=hit|miss}, next to {@code book.categories.reloads} and the {@code book.categories.size} gauge.
+ */
+@Slf4j
+@Component
+public class BookCategoryRegistry {
+
+    private final BookCategoryRepository bookCategoryRepository;
+    private final BookCategoryConfig config;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter reloads;
+
+    private volatile Map<Long, BookCategory> categories = Map.of();
+    private volatile boolean stale = true;
+    private volatile long loadedAt;
+
+    public BookCategoryRegistry(BookCategoryRepository bookCategoryRepository, BookCategoryConfig config,
+                                MeterRegistry meterRegistry) {
+        this.bookCategoryRepository = bookCategoryRepository;
+        this.config = config;
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        this.reloads = Counter.builder("book.categories.reloads")
+                .description("Times the category registry was reloaded from the database")
+                .register(meterRegistry);
+        Gauge.builder("book.categories.size", this, BookCategoryRegistry::size)
+                .description("Categories held by the category registry")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    public Optional<BookCategory> find(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Map<Long, BookCategory> current = current();
+        BookCategory category = current.get(id);
+        if (category != null) {
+            hits.increment();
+            return Optional.of(category);
+        }
+        misses.increment();
+        return Optional.ofNullable(reloadUnlessChanged(current).get(id));
+    }
+
+    public BookCategory get(Long id) {
+        return find(id).orElseThrow(() -> new IllegalArgumentException("Invalid category ID"));
+    }
+
+    public boolean contains(Long id) {
+        return find(id).isPresent();
+    }
+
+    public int size() {
+        return categories.size();
+    }
+
+    public synchronized void refresh() {
+        categories = bookCategoryRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(BookCategory::getId, Function.identity()));
+        stale = false;
+        loadedAt = System.nanoTime();
+        reloads.increment();
+        log.debug("Loaded {} book categories", categories.size());
+    }
+
+    /**
+     * Reloads on the next lookup, or once the current transaction commits if there is one.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stale = true;
+                }
+            });
+        } else {
+            stale = true;
+        }
+    }
+
+    private Map<Long, BookCategory> current() {
+        if (stale) {
+            refresh();
+        }
+        return categories;
+    }
+
+    /**
+     * Threads that miss on the same snapshot share one reload, and a snapshot younger than
+     * {@code miss-reload-interval} is not reloaded at all.
+     */
+    private synchronized Map<Long, BookCategory> reloadUnlessChanged(Map<Long, BookCategory> seen) {
+        if (categories == seen && System.nanoTime() - loadedAt >= config.getMissReloadInterval().toNanos()) {
+            refresh();
+        }
+        return categories;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("book.categories.lookups")
+                .description("Category lookups answered by the category registry")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
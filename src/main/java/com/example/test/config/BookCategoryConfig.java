@@ -0,0 +1,22 @@
+package com.example.test.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.book.categories")
+@Validated
+@Getter
+@Setter
+public class BookCategoryConfig {
+    /**
+     * Minimum time between two reloads of the category registry caused by lookups of unknown ids, so requests or
+     * import rows with made-up ids cannot turn every lookup into a table scan.
+     */
+    private Duration missReloadInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,25 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@ConfigurationProperties(prefix = "app.book.import")
+@Validated
+@Getter
+@Setter
+public class BookImportConfig {
+    /**
+     * Rows per JDBC batch; each batch is committed on its own.
+     */
+    @Min(value = 1, message = "The property 'app.book.import.batch-size' must be at least 1.")
+    private int batchSize = 1000;
+
+    @PositiveOrZero(message = "The property 'app.book.import.max-reported-errors' must not be negative.")
+    private int maxReportedErrors = 1000;
+}
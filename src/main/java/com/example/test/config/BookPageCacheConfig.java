@@ -0,0 +1,36 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.book.page-cache")
+@Validated
+@Getter
+@Setter
+public class BookPageCacheConfig {
+    /**
+     * Keeps serialized listing pages between catalog changes; when off every page is read from the database,
+     * while ETags and 304 responses keep working.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Distinct page, size and sort combinations kept per catalog version; others are served uncached.
+     */
+    @Min(value = 1, message = "The property 'app.book.page-cache.max-pages' must be at least 1.")
+    private int maxPages = 1000;
+
+    /**
+     * How long a page is served before it is reloaded; bounds how stale a page can be after another node changed
+     * the catalog, since only this node's changes drop pages right away. Also the time to live of the catalog query
+     * region, see {@link HibernateCacheConfig}.
+     */
+    private Duration maxAge = Duration.ofSeconds(30);
+}
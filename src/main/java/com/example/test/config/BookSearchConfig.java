@@ -0,0 +1,26 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@ConfigurationProperties(prefix = "app.book.search")
+@Validated
+@Getter
+@Setter
+public class BookSearchConfig {
+    /**
+     * Builds the index in the background once the application is ready; searches answer 503 until it is done.
+     */
+    private boolean buildOnStartup = true;
+
+    @Min(value = 1, message = "The property 'app.book.search.build-chunk-size' must be at least 1.")
+    private int buildChunkSize = 10_000;
+
+    @Min(value = 1, message = "The property 'app.book.search.max-results' must be at least 1.")
+    private int maxResults = 100;
+}
@@ -0,0 +1,57 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Volumes and skew of a synthetic dataset, see {@link com.example.test.dataset.DatasetGenerator}.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.dataset")
+@Validated
+@Getter
+@Setter
+public class DatasetConfig {
+    @Min(value = 1, message = "The property 'app.dataset.categories' must be at least 1.")
+    private int categories = 50;
+
+    @Min(value = 1, message = "The property 'app.dataset.authors' must be at least 1.")
+    private int authors = 20_000;
+
+    @PositiveOrZero(message = "The property 'app.dataset.books' must not be negative.")
+    private long books = 100_000;
+
+    @PositiveOrZero(message = "The property 'app.dataset.customers' must not be negative.")
+    private long customers = 50_000;
+
+    @PositiveOrZero(message = "The property 'app.dataset.subscriptions' must not be negative.")
+    private long subscriptions = 200_000;
+
+    /**
+     * Zipf exponent of author popularity, for books and subscriptions alike; 0 is uniform.
+     */
+    @PositiveOrZero(message = "The property 'app.dataset.author-skew' must not be negative.")
+    private double authorSkew = 1.1;
+
+    /**
+     * Zipf exponent of category popularity; 0 is uniform.
+     */
+    @PositiveOrZero(message = "The property 'app.dataset.category-skew' must not be negative.")
+    private double categorySkew = 1.0;
+
+    /**
+     * Books are spread evenly over this many days up to today.
+     */
+    @Min(value = 1, message = "The property 'app.dataset.added-days' must be at least 1.")
+    private int addedDays = 30;
+
+    @Min(value = 1, message = "The property 'app.dataset.batch-size' must be at least 1.")
+    private int batchSize = 5_000;
+
+    private long seed = 42;
+}
@@ -0,0 +1,66 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+@Component
+@ConfigurationProperties(prefix = "app.digest")
+@Validated
+@Getter
+@Setter
+public class DigestJobConfig {
+    @Min(value = 1, message = "The property 'app.digest.customer-chunk-size' must be at least 1.")
+    private int customerChunkSize = 500;
+
+    @Min(value = 1, message = "The property 'app.digest.book-chunk-size' must be at least 1.")
+    private int bookChunkSize = 10000;
+
+    /**
+     * Books listed in one digest; further matches are summarised as "and N more".
+     */
+    @Min(value = 1, message = "The property 'app.digest.max-books-per-digest' must be at least 1.")
+    private int maxBooksPerDigest = 50;
+
+    /**
+     * Number of customer id ranges a run is split into; only read when a run starts.
+     */
+    @Min(value = 1, message = "The property 'app.digest.partitions' must be at least 1.")
+    private int partitions = 16;
+
+    /**
+     * Worker threads processing partitions on this node at the same time.
+     */
+    @Min(value = 1, message = "The property 'app.digest.parallelism' must be at least 1.")
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * How long a node keeps a partition without checkpointing before other nodes may take it over.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(10);
+
+    /**
+     * Identifies this instance as a partition owner; must be unique across the cluster.
+     */
+    @NotBlank(message = "The property 'app.digest.node-id' must not be blank.")
+    private String nodeId = defaultNodeId();
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
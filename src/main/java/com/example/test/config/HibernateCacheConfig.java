@@ -0,0 +1,52 @@
+package com.example.test.config;
+
+import com.example.test.book.model.Book;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Second-level cache regions for Hibernate, configured in {@code ehcache.xml}. The catalog query region is created
+ * here from its template, with {@code app.book.page-cache.max-age} as time to live, so a reloaded listing page is
+ * never built from query results older than the page itself may be.
+ * <p>
+ * The JCache provider hands out one cache manager per URI and class loader, so each application context gets a
+ * manager under its own URI: contexts never see each other's entries, and closing one (as the test context cache
+ * does) leaves the others' regions open.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    private static final String REGIONS = "ehcache.xml";
+
+    @Bean
+    public CacheManager hibernateCacheManager(BookPageCacheConfig bookPageCacheConfig) throws IOException, ReflectiveOperationException {
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        XmlConfiguration configuration = new XmlConfiguration(new ClassPathResource(REGIONS).getURL());
+        CacheManager cacheManager =
+                provider.getCacheManager(URI.create("urn:hibernate-cache:" + UUID.randomUUID()), configuration);
+        cacheManager.createCache(Book.CATALOG_QUERY_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+                configuration.newCacheConfigurationBuilderFromTemplate(Book.CATALOG_QUERY_REGION, Object.class,
+                                Object.class)
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(bookPageCacheConfig.getMaxAge()))));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
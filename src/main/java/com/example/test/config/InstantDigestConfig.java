@@ -0,0 +1,27 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.digest.instant")
+@Validated
+@Getter
+@Setter
+public class InstantDigestConfig {
+    private boolean enabled = true;
+
+    /**
+     * How long the first book of a batch waits for more books before the batch is sent.
+     */
+    private Duration window = Duration.ofSeconds(30);
+
+    @Min(value = 1, message = "The property 'app.digest.instant.max-books' must be at least 1.")
+    private int maxBooks = 100;
+}
@@ -0,0 +1,31 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.mail.dispatch")
+@Validated
+@Getter
+@Setter
+public class MailDispatchConfig {
+    @Min(value = 1, message = "The property 'app.mail.dispatch.concurrency' must be at least 1.")
+    private int concurrency = 4;
+
+    @Min(value = 0, message = "The property 'app.mail.dispatch.queue-capacity' must not be negative.")
+    private int queueCapacity = 100;
+
+    @Min(value = 1, message = "The property 'app.mail.dispatch.batch-size' must be at least 1.")
+    private int batchSize = 50;
+
+    @Min(value = 0, message = "The property 'app.mail.dispatch.reconnect-attempts' must not be negative.")
+    private int reconnectAttempts = 2;
+
+    private Duration reconnectBackoff = Duration.ofSeconds(1);
+}
@@ -0,0 +1,58 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.mail.governor")
+@Validated
+@Getter
+@Setter
+public class MailGovernorConfig {
+    private boolean enabled = true;
+
+    /**
+     * Messages per second the limiter starts with.
+     */
+    @Positive(message = "The property 'app.mail.governor.initial-rate' must be positive.")
+    private double initialRate = 20;
+
+    @Positive(message = "The property 'app.mail.governor.min-rate' must be positive.")
+    private double minRate = 1;
+
+    @Positive(message = "The property 'app.mail.governor.max-rate' must be positive.")
+    private double maxRate = 100;
+
+    /**
+     * Messages per second added after every batch the server accepts.
+     */
+    @Positive(message = "The property 'app.mail.governor.rate-increase' must be positive.")
+    private double rateIncrease = 1;
+
+    /**
+     * Factor the rate is multiplied by when the server throttles, times out or fails.
+     */
+    @Positive(message = "The property 'app.mail.governor.rate-decrease-factor' must be positive.")
+    @DecimalMax(value = "1", inclusive = false,
+            message = "The property 'app.mail.governor.rate-decrease-factor' must be less than 1.")
+    private double rateDecreaseFactor = 0.5;
+
+    /**
+     * Messages that may be sent back to back after an idle period.
+     */
+    @Min(value = 1, message = "The property 'app.mail.governor.burst' must be at least 1.")
+    private int burst = 50;
+
+    @Min(value = 1, message = "The property 'app.mail.governor.failure-threshold' must be at least 1.")
+    private int failureThreshold = 5;
+
+    private Duration openDuration = Duration.ofSeconds(30);
+}
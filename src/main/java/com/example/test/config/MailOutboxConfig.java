@@ -0,0 +1,31 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.mail.outbox")
+@Validated
+@Getter
+@Setter
+public class MailOutboxConfig {
+    @Min(value = 1, message = "The property 'app.mail.outbox.batch-size' must be at least 1.")
+    private int batchSize = 50;
+
+    @Min(value = 1, message = "The property 'app.mail.outbox.max-attempts' must be at least 1.")
+    private int maxAttempts = 5;
+
+    private Duration retryBackoff = Duration.ofSeconds(30);
+
+    /**
+     * How long a claimed batch is reserved for its dispatcher; messages of a dispatcher that died are sent by another
+     * one after that.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(5);
+}
@@ -0,0 +1,35 @@
+package com.example.test.config;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+@Component
+@ConfigurationProperties(prefix = "app.mail.queue")
+@Validated
+@Getter
+@Setter
+public class MailQueueConfig {
+    private String exchange = "library.mail";
+    private String queue = "library.mail.outgoing";
+    private String deadLetterExchange = "library.mail.dlx";
+    private String deadLetterQueue = "library.mail.outgoing.dlq";
+    private String deadLetterArgument = "x-dead-letter-exchange";
+
+    private boolean listenerEnabled = false;
+
+    @Min(value = 1, message = "The property 'app.mail.queue.concurrency' must be at least 1.")
+    private int concurrency = 1;
+
+    @Min(value = 1, message = "The property 'app.mail.queue.max-concurrency' must be at least 1.")
+    private int maxConcurrency = 4;
+
+    @Min(value = 1, message = "The property 'app.mail.queue.prefetch' must be at least 1.")
+    private int prefetch = 250;
+
+    @Min(value = 1, message = "The property 'app.mail.queue.batch-size' must be at least 1.")
+    private int batchSize = 50;
+}
@@ -0,0 +1,29 @@
+package com.example.test.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.mail.sink")
+@Getter
+@Setter
+public class MailSinkConfig {
+    /**
+     * Replaces the SMTP server with {@link com.example.test.email.SinkMailSender}; nothing leaves the machine.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Where every message is written as an {@code .eml} file; messages are only counted when not set.
+     */
+    private String directory;
+
+    /**
+     * Added to every connection, to simulate a remote server.
+     */
+    private Duration latency = Duration.ZERO;
+}
@@ -0,0 +1,82 @@
+package com.example.test.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Queue topology for the asynchronous mail pipeline, active with {@code app.mail.transport=rabbit}.
+ * <p>
+ * Messages that a worker cannot deliver are dead-lettered to {@code app.mail.queue.dead-letter-queue}.
+ * Mail is published with the queue name as routing key, so dead letters keep it and match the DLQ binding.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.mail", name = "transport", havingValue = "rabbit")
+public class RabbitConfig {
+
+    @Bean
+    public DirectExchange mailExchange(MailQueueConfig config) {
+        return new DirectExchange(config.getExchange());
+    }
+
+    @Bean
+    public DirectExchange mailDeadLetterExchange(MailQueueConfig config) {
+        return new DirectExchange(config.getDeadLetterExchange());
+    }
+
+    @Bean
+    public Queue mailQueue(MailQueueConfig config) {
+        return QueueBuilder.durable(config.getQueue())
+                .withArgument(config.getDeadLetterArgument(), config.getDeadLetterExchange())
+                .build();
+    }
+
+    @Bean
+    public Queue mailDeadLetterQueue(MailQueueConfig config) {
+        return QueueBuilder.durable(config.getDeadLetterQueue()).build();
+    }
+
+    @Bean
+    public Binding mailQueueBinding(Queue mailQueue, DirectExchange mailExchange) {
+        return BindingBuilder.bind(mailQueue).to(mailExchange).with(mailQueue.getName());
+    }
+
+    @Bean
+    public Binding mailDeadLetterBinding(Queue mailDeadLetterQueue, DirectExchange mailDeadLetterExchange,
+                                         MailQueueConfig config) {
+        return BindingBuilder.bind(mailDeadLetterQueue).to(mailDeadLetterExchange).with(config.getQueue());
+    }
+
+    @Bean
+    public MessageConverter mailMessageConverter(ObjectMapper objectMapper) {
+        return new Jackson2JsonMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory mailListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                             MessageConverter mailMessageConverter,
+                                                                             MailQueueConfig config) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(mailMessageConverter);
+        factory.setConcurrentConsumers(config.getConcurrency());
+        factory.setMaxConcurrentConsumers(config.getMaxConcurrency());
+        factory.setPrefetchCount(Math.max(config.getPrefetch(), config.getBatchSize()));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(config.getBatchSize());
+        factory.setDefaultRequeueRejected(false);
+        factory.setAutoStartup(config.isListenerEnabled());
+        return factory;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.test.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "app.scheduling", name = "enabled", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -33,7 +33,7 @@ public class CustomerService {
         newCustomer.setConfirmationToken(generateUniqueConfirmationToken());
         newCustomer = customerRepository.save(newCustomer);
 
-        emailService.sendConfirmationEmail(newCustomer.getEmail(), "Email Confirmation", newCustomer.getConfirmationToken());
+        emailService.queueConfirmationEmail(newCustomer.getEmail(), "Email Confirmation", newCustomer.getConfirmationToken());
 
         return customerMapper.toDTO(newCustomer);
     }
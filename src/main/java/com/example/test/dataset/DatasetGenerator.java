@@ -0,0 +1,206 @@
+package com.example.test.dataset;
+
+import com.example.test.batch.SequenceIds;
+import com.example.test.book.BookPageCache;
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategoryRegistry;
+import com.example.test.config.DatasetConfig;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk-loads a synthetic library into the {@code schema.sql} tables with JDBC batch inserts.
+ * <p>
+ * Authors and categories are drawn from Zipf distributions, so a few authors and categories account for most
+ * books and subscriptions, like in a real catalog. Books and subscriptions share the author ranking: the most
+ * prolific authors are also the most followed ones. Generated names are numbered after the current maximum ids,
+ * so a dataset can be loaded on top of existing data. The same seed on the same database yields the same data.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+public class DatasetGenerator {
+
+    /**
+     * Subscription attempts per slot before giving up on finding a pair the customer does not follow yet.
+     */
+    private static final int MAX_DRAWS = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final BookPageCache bookPageCache;
+    private final BookCategoryRegistry bookCategoryRegistry;
+
+    public GeneratedDataset generate(DatasetConfig spec) {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(spec.getSeed());
+        ZipfDistribution authors = new ZipfDistribution(spec.getAuthors(), spec.getAuthorSkew());
+
+        long[] categoryIds = insertCategories(spec);
+        ZipfDistribution categories = new ZipfDistribution(categoryIds.length, spec.getCategorySkew());
+        long books = insertBooks(spec, random.split(), authors, categories, categoryIds);
+        long[] customerIds = insertCustomers(spec);
+        long subscriptions = insertSubscriptions(spec, random.split(), authors, categories, categoryIds, customerIds);
+        entityManagerFactory.getCache().unwrap(Cache.class).evictQueryRegion(Book.CATALOG_QUERY_REGION);
+        bookPageCache.invalidate();
+        bookCategoryRegistry.invalidate();
+
+        GeneratedDataset dataset = new GeneratedDataset(categoryIds.length, books, customerIds.length, subscriptions,
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("Generated {} categories, {} books, {} customers and {} subscriptions in {} s",
+                dataset.categories(), dataset.books(), dataset.customers(), dataset.subscriptions(),
+                dataset.elapsed().toSeconds());
+        return dataset;
+    }
+
+    private long[] insertCategories(DatasetConfig spec) {
+        long base = maxId("book_categories");
+        insert("INSERT INTO book_categories (category_name) VALUES (?)", spec.getCategories(), spec.getBatchSize(),
+                (ps, i) -> ps.setString(1, "Category " + (base + i + 1)));
+        return idsAbove("book_categories", base);
+    }
+
+    private long insertBooks(DatasetConfig spec, SplittableRandom random, ZipfDistribution authors,
+                             ZipfDistribution categories, long[] categoryIds) {
+        long base = maxId("books");
+        LocalDate today = LocalDate.now();
+        SequenceIds ids = new SequenceIds(jdbcTemplate, Book.ID_SEQUENCE, Book.ID_ALLOCATION_SIZE);
+        return insert("INSERT INTO books (id, author, title, category_id, added_date, version) VALUES (?, ?, ?, ?, ?, 0)",
+                spec.getBooks(), spec.getBatchSize(), (ps, i) -> {
+                    ps.setLong(1, ids.next());
+                    ps.setString(2, author(authors.sample(random)));
+                    ps.setString(3, "Title " + (base + i + 1));
+                    ps.setLong(4, categoryIds[categories.sample(random)]);
+                    ps.setDate(5, Date.valueOf(today.minusDays(random.nextInt(spec.getAddedDays()))));
+                });
+    }
+
+    private long[] insertCustomers(DatasetConfig spec) {
+        long base = maxId("customers");
+        insert("INSERT INTO customers (first_name, last_name, email, email_confirmed) VALUES (?, ?, ?, TRUE)",
+                spec.getCustomers(), spec.getBatchSize(), (ps, i) -> {
+                    ps.setString(1, "Reader");
+                    ps.setString(2, "No. " + (base + i + 1));
+                    ps.setString(3, "reader" + (base + i + 1) + "@example.com");
+                });
+        return idsAbove("customers", base);
+    }
+
+    /**
+     * Spreads the subscriptions evenly over the customers; a customer never follows the same author and
+     * category pair twice.
+     */
+    private long insertSubscriptions(DatasetConfig spec, SplittableRandom random, ZipfDistribution authors,
+                                     ZipfDistribution categories, long[] categoryIds, long[] customerIds) {
+        if (customerIds.length == 0) {
+            return 0;
+        }
+        long perCustomer = spec.getSubscriptions() / customerIds.length;
+        long remainder = spec.getSubscriptions() % customerIds.length;
+        if (perCustomer + (remainder > 0 ? 1 : 0) > (long) authors.size() * categoryIds.length) {
+            throw new IllegalArgumentException("Cannot give every customer " + (perCustomer + 1)
+                    + " distinct author and category pairs out of " + authors.size() + " authors and "
+                    + categoryIds.length + " categories");
+        }
+        Set<Long> followed = new HashSet<>();
+        long[] current = {-1};
+
+        return insert("INSERT INTO subscriptions (customer_id, author, category_id, version) VALUES (?, ?, ?, 0)",
+                spec.getSubscriptions(), spec.getBatchSize(), (ps, i) -> {
+                    int customer = customerOf(i, perCustomer, remainder);
+                    if (customer != current[0]) {
+                        current[0] = customer;
+                        followed.clear();
+                    }
+                    int author;
+                    int category;
+                    int draws = 0;
+                    do {
+                        author = authors.sample(random);
+                        category = categories.sample(random);
+                    } while (!followed.add((long) author * categoryIds.length + category) && ++draws < MAX_DRAWS);
+                    if (draws == MAX_DRAWS) {
+                        // fall back to the first pair not followed yet, in rank order
+                        author = 0;
+                        category = 0;
+                        while (!followed.add((long) author * categoryIds.length + category)) {
+                            category = (category + 1) % categoryIds.length;
+                            author += category == 0 ? 1 : 0;
+                        }
+                    }
+                    ps.setLong(1, customerIds[customer]);
+                    ps.setString(2, author(author));
+                    ps.setLong(3, categoryIds[category]);
+                });
+    }
+
+    private static int customerOf(long index, long perCustomer, long remainder) {
+        long withExtra = remainder * (perCustomer + 1);
+        return (int) (index < withExtra
+                ? index / (perCustomer + 1)
+                : remainder + (index - withExtra) / perCustomer);
+    }
+
+    private static String author(int rank) {
+        return "Author " + (rank + 1);
+    }
+
+    private long insert(String sql, long rows, int batchSize, RowWriter writer) {
+        for (long from = 0; from < rows; from += batchSize) {
+            long offset = from;
+            int size = (int) Math.min(batchSize, rows - from);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    writer.write(ps, offset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+            if (rows > batchSize && (from / batchSize) % 100 == 99) {
+                log.info("{}: {} of {} rows", sql.substring(0, sql.indexOf('(')).trim(), from + size, rows);
+            }
+        }
+        return rows;
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private long[] idsAbove(String table, long base) {
+        long[][] ids = {new long[1024]};
+        int[] size = {0};
+        jdbcTemplate.query("SELECT id FROM " + table + " WHERE id > ? ORDER BY id", rs -> {
+            if (size[0] == ids[0].length) {
+                ids[0] = Arrays.copyOf(ids[0], size[0] * 2);
+            }
+            ids[0][size[0]++] = rs.getLong(1);
+        }, base);
+        return Arrays.copyOf(ids[0], size[0]);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, long index) throws SQLException;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.test.dataset;
+
+import com.example.test.config.DatasetConfig;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line entry point: with the {@code dataset} profile the application loads the configured dataset into
+ * its database and exits, e.g.
+ * {@code java -jar library.jar --spring.profiles.active=dataset --app.dataset.books=5000000}.
+ */
+@AllArgsConstructor
+@Component
+@Profile("dataset")
+public class DatasetLoader implements ApplicationRunner {
+
+    private final DatasetGenerator datasetGenerator;
+    private final DatasetConfig config;
+    private final ApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        datasetGenerator.generate(config);
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
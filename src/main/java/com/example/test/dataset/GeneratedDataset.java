@@ -0,0 +1,6 @@
+package com.example.test.dataset;
+
+import java.time.Duration;
+
+public record GeneratedDataset(int categories, long books, long customers, long subscriptions, Duration elapsed) {
+}
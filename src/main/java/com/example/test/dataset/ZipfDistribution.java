@@ -0,0 +1,42 @@
+package com.example.test.dataset;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples ranks {@code 0..n-1} where rank {@code k} has probability proportional to {@code 1 / (k + 1)^exponent},
+ * by binary search over the precomputed cumulative distribution.
+ */
+public class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be at least 1");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    public int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    public double probability(int rank) {
+        return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+}
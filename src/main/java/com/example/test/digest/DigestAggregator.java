@@ -0,0 +1,53 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.digest.model.CustomerDigest;
+import com.example.test.digest.model.DigestRecipient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the matches of every subscription and every book page of a run into one digest per customer,
+ * keeping at most {@code maxBooksPerDigest} books in each.
+ */
+public class DigestAggregator {
+
+    private final Map<Long, CustomerDigest> digests = new LinkedHashMap<>();
+    private final int maxBooksPerDigest;
+
+    public DigestAggregator(int maxBooksPerDigest) {
+        this.maxBooksPerDigest = maxBooksPerDigest;
+    }
+
+    public void add(DigestRecipient recipient, Collection<Book> matchedBooks) {
+        digests.computeIfAbsent(recipient.customerId(),
+                        id -> new CustomerDigest(id, recipient.email(), maxBooksPerDigest))
+                .addBooks(matchedBooks, recipient.author());
+    }
+
+    public Collection<CustomerDigest> getDigests() {
+        return digests.values();
+    }
+
+    /**
+     * Digests ordered so that customers who matched exactly the same books are next to each other,
+     * which lets the rendered body be reused within a send batch.
+     */
+    public List<CustomerDigest> getDigestsGroupedByContent() {
+        Map<CustomerDigest.ContentKey, List<CustomerDigest>> groups = new LinkedHashMap<>();
+        for (CustomerDigest digest : digests.values()) {
+            groups.computeIfAbsent(digest.getContentKey(), key -> new ArrayList<>()).add(digest);
+        }
+        List<CustomerDigest> grouped = new ArrayList<>(digests.size());
+        groups.values().forEach(grouped::addAll);
+        return grouped;
+    }
+
+    public int size() {
+        return digests.size();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.digest.model.CustomerDigest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Renders each distinct digest once per run. Digests are keyed by their {@link CustomerDigest.ContentKey}, so
+ * customers who matched the same books share one rendered body. The cache is LRU-bounded because only neighbouring digests are expected
+ * to repeat (see {@link DigestAggregator#getDigestsGroupedByContent()}).
+ */
+public class DigestContentCache {
+
+    private final BiFunction<List<Book>, Integer, String> renderer;
+    private final Map<CustomerDigest.ContentKey, String> contents;
+    private int hits;
+    private int misses;
+
+    public DigestContentCache(BiFunction<List<Book>, Integer, String> renderer, int maxEntries) {
+        this.renderer = renderer;
+        this.contents = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CustomerDigest.ContentKey, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public String render(CustomerDigest digest) {
+        CustomerDigest.ContentKey key = digest.getContentKey();
+        String content = contents.get(key);
+        if (content != null) {
+            hits++;
+            return content;
+        }
+        misses++;
+        content = renderer.apply(digest.getBooks(), key.moreBooks());
+        contents.put(key, content);
+        return content;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public double getHitRatio() {
+        int total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,398 @@
+package com.example.test.digest;
+
+import com.example.test.batch.KeysetChunks;
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import com.example.test.config.DigestJobConfig;
+import com.example.test.digest.model.DigestPartition;
+import com.example.test.digest.model.DigestRecipient;
+import com.example.test.digest.model.DigestRun;
+import com.example.test.digest.model.DigestRunStatus;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.template.EmailTemplates;
+import com.example.test.subscription.SubscriptionRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The daily new-books digest as a resumable job that any number of instances can run at the same time.
+ * <p>
+ * A run splits the subscribed customer ids into {@code app.digest.partitions} contiguous ranges, stored as
+ * {@link DigestPartition} rows. Each node keeps claiming partitions that are unowned or whose lease has run out,
+ * with a conditional update so only one node wins, and walks its range in customer id order, one chunk of customers
+ * at a time. Only customers subscribed to an author or category of the run's new books are visited. Once a chunk's
+ * digests are dispatched, the delivered books are recorded in the customers' {@link NotificationLedger} entries in
+ * one write, then the partition's {@code lastCustomerId} checkpoint is saved and the lease renewed. A partition
+ * whose node dies is resumed by another node from its checkpoint, and books a customer was already notified about
+ * are dropped before aggregating, so nobody gets the same title twice however many instances fire the schedule or
+ * however often the run is restarted.
+ * <p>
+ * A run covers every book added since the date of the last completed run, that day included, so books added after
+ * that run started, or whose instant digest was lost or failed, are picked up; the ledger drops the ones customers
+ * already got.
+ * <p>
+ * Each node runs {@code app.digest.parallelism} workers that claim and process partitions independently.
+ * Partitions cover disjoint customers, so digests never have to be merged across workers.
+ */
+@Slf4j
+@AllArgsConstructor
+@Service
+public class DigestJob {
+
+    private static final int DIGEST_CONTENT_CACHE_SIZE = 64;
+    private static final int IN_LIST_CHUNK_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final DigestRunRepository digestRunRepository;
+    private final DigestPartitionRepository digestPartitionRepository;
+    private final NotificationLedger notificationLedger;
+    private final DigestMailer digestMailer;
+    private final EmailTemplates emailTemplates;
+    private final DigestJobConfig config;
+
+    public Optional<DigestRun> run(LocalDate runDate) {
+        DigestRun run = digestRunRepository.findByRunDate(runDate).orElse(null);
+        if (run != null && run.getStatus() == DigestRunStatus.COMPLETED) {
+            log.info("Digest run {} for {} already completed", run.getId(), runDate);
+            return Optional.of(run);
+        }
+
+        LocalDate from = digestRunRepository
+                .findFirstByStatusAndRunDateLessThanOrderByRunDateDesc(DigestRunStatus.COMPLETED, runDate)
+                .map(DigestRun::getRunDate)
+                .orElse(runDate);
+        NewBookIndex newBooks = loadNewBooks(from, runDate);
+        if (newBooks.isEmpty()) {
+            return Optional.ofNullable(run);
+        }
+
+        if (run == null) {
+            run = start(runDate);
+        }
+        createMissingPartitions(run);
+
+        List<Worker> workers = runWorkers(run, newBooks);
+        int processed = workers.stream().mapToInt(Worker::getProcessed).sum();
+        int rendered = workers.stream().mapToInt(worker -> worker.contents.getMisses()).sum();
+        int reused = workers.stream().mapToInt(worker -> worker.contents.getHits()).sum();
+
+        log.info("Node {} processed {} partitions of digest run {} on {} workers, rendered {} distinct digests " +
+                        "(dedupe hit ratio {})", config.getNodeId(), processed, run.getId(), workers.size(), rendered,
+                String.format("%.2f", rendered + reused == 0 ? 0 : (double) reused / (rendered + reused)));
+        return Optional.of(completeIfDone(run));
+    }
+
+    /**
+     * Runs the workers to completion. If one of them fails the others stop claiming new partitions, like a node
+     * that went down, and the first failure is rethrown; whatever is left is resumed from the checkpoints.
+     */
+    private List<Worker> runWorkers(DigestRun run, NewBookIndex newBooks) {
+        Set<Long> claimed = ConcurrentHashMap.newKeySet();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < config.getParallelism(); i++) {
+            workers.add(new Worker(run, newBooks, claimed, failed));
+        }
+        if (workers.size() == 1) {
+            workers.get(0).run();
+            return workers;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size(),
+                new CustomizableThreadFactory("digest-worker-"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            workers.forEach(worker -> futures.add(executor.submit(worker)));
+            RuntimeException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException runtime
+                                ? runtime
+                                : new IllegalStateException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.set(true);
+                    throw new IllegalStateException("Interrupted while waiting for digest workers", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return workers;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Picks up partitions of the latest unfinished run, whatever its date, whose owner stopped renewing its lease.
+     * The new books are only loaded once there is a partition to claim, so polling while the owners are alive
+     * costs a few small queries.
+     */
+    public Optional<DigestRun> resume() {
+        DigestRun run = digestRunRepository.findFirstByStatusNotOrderByRunDateDesc(DigestRunStatus.COMPLETED)
+                .orElse(null);
+        if (run == null) {
+            return Optional.empty();
+        }
+        if (digestPartitionRepository.countByRunIdAndStatus(run.getId(), DigestRunStatus.COMPLETED)
+                >= run.getPartitions()) {
+            // the last partition was finished by a node that died before it could close the run
+            return Optional.of(completeIfDone(run));
+        }
+        if (digestPartitionRepository.countByRunId(run.getId()) == run.getPartitions()
+                && digestPartitionRepository.findClaimable(run.getId(), config.getNodeId(), LocalDateTime.now(),
+                DigestRunStatus.COMPLETED).isEmpty()) {
+            return Optional.empty();
+        }
+        return run(run.getRunDate());
+    }
+
+    private NewBookIndex loadNewBooks(LocalDate from, LocalDate to) {
+        NewBookIndex index = new NewBookIndex();
+        KeysetChunks<Book> books = new KeysetChunks<>(
+                (lastId, limit) -> bookRepository.findAddedBetweenAfter(from, to, lastId, limit), Book::getId,
+                config.getBookChunkSize());
+        for (List<Book> chunk : books) {
+            chunk.forEach(index::add);
+        }
+        return index;
+    }
+
+    private DigestRun start(LocalDate runDate) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            DigestRun run = digestRunRepository.save(DigestRun.builder()
+                    .runDate(runDate)
+                    .status(DigestRunStatus.RUNNING)
+                    .partitions(config.getPartitions())
+                    .minCustomerId(subscriptionRepository.findMinCustomerId().orElse(0L))
+                    .maxCustomerId(subscriptionRepository.findMaxCustomerId().orElse(0L))
+                    .startedAt(now)
+                    .updatedAt(now)
+                    .build());
+            log.info("Node {} started digest run {} for {} with {} partitions",
+                    config.getNodeId(), run.getId(), runDate, run.getPartitions());
+            return run;
+        } catch (DataIntegrityViolationException e) {
+            // another node started the run first
+            return digestRunRepository.findByRunDate(runDate).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Every node makes sure all partitions exist before claiming, so a node that died right after creating
+     * the run cannot leave part of the customer ids without a partition.
+     */
+    private void createMissingPartitions(DigestRun run) {
+        Set<Integer> existing = new HashSet<>();
+        digestPartitionRepository.findByRunIdOrderByPartitionNo(run.getId())
+                .forEach(partition -> existing.add(partition.getPartitionNo()));
+
+        long span = run.getMaxCustomerId() - run.getMinCustomerId() + 1;
+        for (int partitionNo = 0; partitionNo < run.getPartitions(); partitionNo++) {
+            if (existing.contains(partitionNo)) {
+                continue;
+            }
+            long rangeStart = run.getMinCustomerId() - 1 + span * partitionNo / run.getPartitions();
+            long rangeEnd = partitionNo == run.getPartitions() - 1
+                    ? Long.MAX_VALUE
+                    : run.getMinCustomerId() - 1 + span * (partitionNo + 1) / run.getPartitions();
+            if (partitionNo == 0) {
+                rangeStart = KeysetChunks.START;
+            }
+            try {
+                digestPartitionRepository.save(DigestPartition.builder()
+                        .runId(run.getId())
+                        .partitionNo(partitionNo)
+                        .lastCustomerId(rangeStart)
+                        .rangeEnd(rangeEnd)
+                        .status(DigestRunStatus.PENDING)
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // created concurrently by another node
+            }
+        }
+    }
+
+    /**
+     * {@code claimed} keeps two workers of this node from taking the same partition, which the lease alone cannot
+     * tell apart since it is held by the node.
+     */
+    private Optional<DigestPartition> claimNext(DigestRun run, Set<Long> claimed) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DigestPartition> claimable = digestPartitionRepository.findClaimable(run.getId(), config.getNodeId(),
+                now, DigestRunStatus.COMPLETED);
+        for (DigestPartition partition : claimable) {
+            if (!claimed.add(partition.getId())) {
+                continue;
+            }
+            if (digestPartitionRepository.claim(partition.getId(), config.getNodeId(), now,
+                    now.plus(config.getLeaseDuration()), DigestRunStatus.RUNNING, DigestRunStatus.COMPLETED) == 1) {
+                if (partition.getOwner() != null && !partition.getOwner().equals(config.getNodeId())) {
+                    log.warn("Node {} took over partition {} of digest run {} from {} after customer {}",
+                            config.getNodeId(), partition.getPartitionNo(), run.getId(), partition.getOwner(),
+                            partition.getLastCustomerId());
+                }
+                return digestPartitionRepository.findById(partition.getId());
+            }
+            claimed.remove(partition.getId());
+        }
+        return Optional.empty();
+    }
+
+    private void process(DigestRun run, DigestPartition partition, NewBookIndex newBooks, DigestContentCache contents) {
+        List<Set<String>> authorChunks = chunk(newBooks.getAuthors());
+        List<Set<Long>> categoryChunks = chunk(newBooks.getCategoryIds());
+        KeysetChunks<Long> customers = new KeysetChunks<>(
+                (lastCustomerId, limit) -> findSubscribedCustomerIds(authorChunks, categoryChunks, lastCustomerId,
+                        partition.getRangeEnd(), limit),
+                customerId -> customerId, config.getCustomerChunkSize(), partition.getLastCustomerId());
+
+        for (List<Long> customerIds : customers) {
+            NotificationLedger.SentBooks sentBooks = notificationLedger.load(customerIds);
+            DigestAggregator aggregator = new DigestAggregator(config.getMaxBooksPerDigest());
+            for (DigestRecipient recipient : subscriptionRepository.findRecipientsByCustomerIds(customerIds)) {
+                List<Book> matched = sentBooks.unsent(recipient.customerId(), newBooks.match(recipient));
+                if (!matched.isEmpty()) {
+                    aggregator.add(recipient, matched);
+                }
+            }
+
+            DispatchReport report = digestMailer.send(aggregator.getDigestsGroupedByContent(), contents);
+            LocalDateTime now = LocalDateTime.now();
+            if (digestPartitionRepository.checkpoint(partition.getId(), config.getNodeId(),
+                    customerIds.get(customerIds.size() - 1), report.getSent(), report.getDeferredCount(),
+                    report.getFailed(), now, now.plus(config.getLeaseDuration())) == 0) {
+                log.warn("Node {} lost the lease on partition {} of digest run {}, leaving it to the new owner",
+                        config.getNodeId(), partition.getPartitionNo(), run.getId());
+                return;
+            }
+        }
+
+        digestPartitionRepository.complete(partition.getId(), config.getNodeId(), LocalDateTime.now(),
+                DigestRunStatus.COMPLETED);
+    }
+
+    /**
+     * The next customers in the range subscribed to an author or category of the new books. The IN lists are sent
+     * {@value #IN_LIST_CHUNK_SIZE} values at a time so a busy day stays under the driver's bind parameter limit;
+     * the first {@code limit} ids of every chunk together always hold the first {@code limit} ids overall.
+     */
+    private List<Long> findSubscribedCustomerIds(List<Set<String>> authorChunks, List<Set<Long>> categoryChunks,
+                                                 long lastCustomerId, long upToCustomerId, Pageable limit) {
+        if (authorChunks.size() <= 1 && categoryChunks.size() <= 1) {
+            return subscriptionRepository.findCustomerIdsByAuthorsOrCategoriesBetween(chunkAt(authorChunks, 0),
+                    chunkAt(categoryChunks, 0), lastCustomerId, upToCustomerId, limit);
+        }
+
+        TreeSet<Long> customerIds = new TreeSet<>();
+        for (int i = 0; i < Math.max(authorChunks.size(), categoryChunks.size()); i++) {
+            customerIds.addAll(subscriptionRepository.findCustomerIdsByAuthorsOrCategoriesBetween(
+                    chunkAt(authorChunks, i), chunkAt(categoryChunks, i), lastCustomerId, upToCustomerId, limit));
+        }
+        return customerIds.stream().limit(limit.getPageSize()).toList();
+    }
+
+    private static <T> List<Set<T>> chunk(Collection<T> values) {
+        List<Set<T>> chunks = new ArrayList<>();
+        Set<T> chunk = new HashSet<>();
+        for (T value : values) {
+            chunk.add(value);
+            if (chunk.size() == IN_LIST_CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new HashSet<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static <T> Set<T> chunkAt(List<Set<T>> chunks, int index) {
+        return index < chunks.size() ? chunks.get(index) : Set.of();
+    }
+
+    private DigestRun completeIfDone(DigestRun run) {
+        long completed = digestPartitionRepository.countByRunIdAndStatus(run.getId(), DigestRunStatus.COMPLETED);
+        DigestRun current = digestRunRepository.findById(run.getId()).orElse(run);
+        if (completed < current.getPartitions() || current.getStatus() == DigestRunStatus.COMPLETED) {
+            return current;
+        }
+
+        current.setStatus(DigestRunStatus.COMPLETED);
+        current.setSent(digestPartitionRepository.sumSent(run.getId()));
+        current.setDeferred(digestPartitionRepository.sumDeferred(run.getId()));
+        current.setFailed(digestPartitionRepository.sumFailed(run.getId()));
+        current.setUpdatedAt(LocalDateTime.now());
+        current = digestRunRepository.save(current);
+
+        log.info("Digest run {} for {} completed: sent={}, deferred={}, failed={}", current.getId(),
+                current.getRunDate(), current.getSent(), current.getDeferred(), current.getFailed());
+        return current;
+    }
+
+    /**
+     * Claims and processes partitions until none is left. Each worker has its own content cache, so the caches
+     * need no locking.
+     */
+    private class Worker implements Runnable {
+        private final DigestRun run;
+        private final NewBookIndex newBooks;
+        private final Set<Long> claimed;
+        private final AtomicBoolean failed;
+        private final DigestContentCache contents =
+                new DigestContentCache(emailTemplates::newBooks, DIGEST_CONTENT_CACHE_SIZE);
+        @Getter
+        private int processed;
+
+        Worker(DigestRun run, NewBookIndex newBooks, Set<Long> claimed, AtomicBoolean failed) {
+            this.run = run;
+            this.newBooks = newBooks;
+            this.claimed = claimed;
+            this.failed = failed;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (Optional<DigestPartition> partition = claimNext(run, claimed);
+                     partition.isPresent(); partition = failed.get() ? Optional.empty() : claimNext(run, claimed)) {
+                    process(run, partition.get(), newBooks, contents);
+                    processed++;
+                }
+            } catch (RuntimeException e) {
+                failed.set(true);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.test.digest;
+
+import com.example.test.digest.model.CustomerDigest;
+import com.example.test.email.EmailService;
+import com.example.test.email.MailOutbox;
+import com.example.test.email.MailTransport;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Sends customer digests and records the delivered books in the {@link NotificationLedger}. Digests the mail server
+ * cannot take right now (circuit open or throttled) are parked in the outbox, which will deliver them, and recorded
+ * as well.
+ * <p>
+ * The ledger is written once per call, after the transport returns, so the SMTP workers never wait for the database.
+ * Digests accepted before the transport failed are still recorded; only a node dying between the delivery and the
+ * ledger write can make a resumed run send that one chunk again.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+public class DigestMailer {
+
+    private final MailTransport mailTransport;
+    private final MailOutbox mailOutbox;
+    private final NotificationLedger notificationLedger;
+
+    public DispatchReport send(List<CustomerDigest> digests, DigestContentCache contents) {
+        // by instance: customers sharing an address can get equal emails, and each must be recorded
+        Map<OutgoingEmail, CustomerDigest> emailed = Collections.synchronizedMap(new IdentityHashMap<>());
+        Queue<CustomerDigest> accepted = new ConcurrentLinkedQueue<>();
+        DispatchReport report = new DispatchReport(email -> accepted.add(emailed.get(email)));
+
+        try {
+            mailTransport.dispatch(() -> digests.stream()
+                    .map(digest -> {
+                        OutgoingEmail email = new OutgoingEmail(digest.getEmail(), EmailService.NEW_BOOKS_SUBJECT,
+                                contents.render(digest));
+                        emailed.put(email, digest);
+                        return email;
+                    })
+                    .iterator(), report);
+
+            List<OutgoingEmail> deferred = report.getDeferred();
+            if (!deferred.isEmpty()) {
+                mailOutbox.enqueueAll(deferred);
+                deferred.forEach(email -> accepted.add(emailed.get(email)));
+                log.warn("Mail server unavailable or throttling, deferred {} digests to the outbox", deferred.size());
+            }
+        } finally {
+            record(accepted);
+        }
+        return report;
+    }
+
+    private void record(Collection<CustomerDigest> accepted) {
+        if (accepted.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Long>> bookIdsByCustomer = new HashMap<>();
+        accepted.forEach(digest -> bookIdsByCustomer.put(digest.getCustomerId(), digest.getBookIds()));
+        try {
+            notificationLedger.recordAll(bookIdsByCustomer);
+        } catch (RuntimeException e) {
+            log.error("Could not record the books sent to {} customers: {}", bookIdsByCustomer.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.test.digest;
+
+import com.example.test.digest.model.DigestPartition;
+import com.example.test.digest.model.DigestRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DigestPartitionRepository extends JpaRepository<DigestPartition, Long> {
+
+    List<DigestPartition> findByRunIdOrderByPartitionNo(Long runId);
+
+    long countByRunId(Long runId);
+
+    long countByRunIdAndStatus(Long runId, DigestRunStatus status);
+
+    @Query("SELECT p FROM DigestPartition p WHERE p.runId = :runId AND p.status <> :completed " +
+            "AND (p.owner IS NULL OR p.owner = :owner OR p.leaseUntil < :now) ORDER BY p.partitionNo")
+    List<DigestPartition> findClaimable(@Param("runId") Long runId, @Param("owner") String owner,
+                                        @Param("now") LocalDateTime now, @Param("completed") DigestRunStatus completed);
+
+    /**
+     * Takes the lease if the partition is unowned, already ours or its lease has run out.
+     * Returns 0 if another node got there first.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DigestPartition p SET p.owner = :owner, p.leaseUntil = :leaseUntil, p.status = :running, " +
+            "p.updatedAt = :now WHERE p.id = :id AND p.status <> :completed " +
+            "AND (p.owner IS NULL OR p.owner = :owner OR p.leaseUntil < :now)")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("running") DigestRunStatus running,
+              @Param("completed") DigestRunStatus completed);
+
+    /**
+     * Saves the progress and renews the lease. Returns 0 if the lease has been taken over by another node.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DigestPartition p SET p.lastCustomerId = :lastCustomerId, p.sent = p.sent + :sent, " +
+            "p.deferred = p.deferred + :deferred, p.failed = p.failed + :failed, p.leaseUntil = :leaseUntil, " +
+            "p.updatedAt = :now WHERE p.id = :id AND p.owner = :owner")
+    int checkpoint(@Param("id") Long id, @Param("owner") String owner, @Param("lastCustomerId") long lastCustomerId,
+                   @Param("sent") int sent, @Param("deferred") int deferred, @Param("failed") int failed,
+                   @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DigestPartition p SET p.status = :completed, p.leaseUntil = NULL, p.updatedAt = :now " +
+            "WHERE p.id = :id AND p.owner = :owner")
+    int complete(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                 @Param("completed") DigestRunStatus completed);
+
+    @Query("SELECT COALESCE(SUM(p.sent), 0) FROM DigestPartition p WHERE p.runId = :runId")
+    int sumSent(@Param("runId") Long runId);
+
+    @Query("SELECT COALESCE(SUM(p.deferred), 0) FROM DigestPartition p WHERE p.runId = :runId")
+    int sumDeferred(@Param("runId") Long runId);
+
+    @Query("SELECT COALESCE(SUM(p.failed), 0) FROM DigestPartition p WHERE p.runId = :runId")
+    int sumFailed(@Param("runId") Long runId);
+}
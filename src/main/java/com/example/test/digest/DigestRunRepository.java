@@ -0,0 +1,17 @@
+package com.example.test.digest;
+
+import com.example.test.digest.model.DigestRun;
+import com.example.test.digest.model.DigestRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface DigestRunRepository extends JpaRepository<DigestRun, Long> {
+
+    Optional<DigestRun> findByRunDate(LocalDate runDate);
+
+    Optional<DigestRun> findFirstByStatusNotOrderByRunDateDesc(DigestRunStatus status);
+
+    Optional<DigestRun> findFirstByStatusAndRunDateLessThanOrderByRunDateDesc(DigestRunStatus status, LocalDate runDate);
+}
@@ -0,0 +1,80 @@
+package com.example.test.digest;
+
+import com.example.test.batch.KeysetChunks;
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import com.example.test.config.DigestJobConfig;
+import com.example.test.digest.model.DigestRecipient;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.template.EmailTemplates;
+import com.example.test.subscription.SubscriptionRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the new-books digest for a small batch of freshly added books to the subscribers they match.
+ * <p>
+ * Only subscriptions on the batch's authors and categories are read, so the cost follows the number of affected
+ * subscribers rather than the size of the subscription table. Every delivered book is recorded in the customer's
+ * {@link NotificationLedger} entry, so the daily {@link DigestJob}, which goes over all books added since its last
+ * completed run, only sends what a batch did not deliver: books whose batch was lost and customers it failed for.
+ */
+@Slf4j
+@AllArgsConstructor
+@Service
+public class InstantDigest {
+
+    private static final int DIGEST_CONTENT_CACHE_SIZE = 64;
+
+    private final BookRepository bookRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final NotificationLedger notificationLedger;
+    private final DigestMailer digestMailer;
+    private final EmailTemplates emailTemplates;
+    private final DigestJobConfig config;
+
+    public DispatchReport send(Collection<Long> bookIds) {
+        List<Book> books = bookRepository.findWithCategoryByIds(bookIds);
+        if (books.isEmpty()) {
+            return new DispatchReport();
+        }
+
+        NewBookIndex index = new NewBookIndex();
+        Set<String> authors = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (Book book : books) {
+            index.add(book);
+            authors.add(book.getAuthor());
+            categoryIds.add(book.getCategory().getId());
+        }
+
+        DigestAggregator aggregator = new DigestAggregator(config.getMaxBooksPerDigest());
+        KeysetChunks<DigestRecipient> recipients = new KeysetChunks<>(
+                (lastId, limit) -> subscriptionRepository.findRecipientsByAuthorsOrCategoriesAfter(authors, categoryIds,
+                        lastId, limit),
+                DigestRecipient::subscriptionId, config.getCustomerChunkSize());
+        for (List<DigestRecipient> chunk : recipients) {
+            NotificationLedger.SentBooks sentBooks = notificationLedger.load(
+                    chunk.stream().map(DigestRecipient::customerId).collect(Collectors.toSet()));
+            for (DigestRecipient recipient : chunk) {
+                List<Book> matched = sentBooks.unsent(recipient.customerId(), index.match(recipient));
+                if (!matched.isEmpty()) {
+                    aggregator.add(recipient, matched);
+                }
+            }
+        }
+
+        DigestContentCache contents = new DigestContentCache(emailTemplates::newBooks, DIGEST_CONTENT_CACHE_SIZE);
+        DispatchReport report = digestMailer.send(aggregator.getDigestsGroupedByContent(), contents);
+        log.info("Notified {} customers about {} new books: sent={}, deferred={}, failed={}", aggregator.size(),
+                books.size(), report.getSent(), report.getDeferredCount(), report.getFailed());
+        return report;
+    }
+}
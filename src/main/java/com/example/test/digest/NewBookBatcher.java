@@ -0,0 +1,104 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.BookAddedEvent;
+import com.example.test.config.InstantDigestConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects committed books and hands them to {@link InstantDigest} in micro-batches: a batch is sent
+ * {@code app.digest.instant.window} after its first book arrived, or as soon as it holds
+ * {@code app.digest.instant.max-books} books, whichever comes first.
+ * <p>
+ * Batches are sent one at a time on a background thread, so {@code addBook} callers never wait for the mail server.
+ * Books still buffered when the application stops, or whose batch could not be sent, go out with the next daily
+ * digest, which covers every book added since its last completed run.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.digest.instant", name = "enabled", matchIfMissing = true)
+public class NewBookBatcher {
+
+    private final InstantDigest instantDigest;
+    private final InstantDigestConfig config;
+    private final ScheduledExecutorService scheduler;
+
+    private List<Long> pending = new ArrayList<>();
+    private ScheduledFuture<?> windowTimer;
+
+    public NewBookBatcher(InstantDigest instantDigest, InstantDigestConfig config) {
+        this.instantDigest = instantDigest;
+        this.config = config;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("new-book-batch-"));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookAdded(BookAddedEvent event) {
+        synchronized (this) {
+            pending.add(event.bookId());
+            if (pending.size() >= config.getMaxBooks()) {
+                List<Long> batch = takePending();
+                scheduler.execute(() -> send(batch));
+            } else if (windowTimer == null) {
+                windowTimer = scheduler.schedule(this::flush, config.getWindow().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Sends whatever is buffered right away, on the calling thread.
+     */
+    public void flush() {
+        List<Long> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    private List<Long> takePending() {
+        if (windowTimer != null) {
+            windowTimer.cancel(false);
+            windowTimer = null;
+        }
+        List<Long> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void send(List<Long> bookIds) {
+        try {
+            instantDigest.send(bookIds);
+        } catch (RuntimeException e) {
+            log.error("Could not notify subscribers about books {}, leaving them to the daily digest: {}",
+                    bookIds, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        int left = getPending();
+        if (left > 0) {
+            log.info("{} new books not notified yet, they will go out with the daily digest", left);
+        }
+    }
+}
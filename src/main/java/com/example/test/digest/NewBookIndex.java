@@ -0,0 +1,76 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.digest.model.DigestRecipient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The new books of a run indexed by author and by category id, so that subscriptions can be streamed past it
+ * in customer order.
+ */
+public class NewBookIndex {
+
+    private final Map<String, List<Book>> booksByAuthor = new HashMap<>();
+    private final Map<Long, List<Book>> booksByCategory = new HashMap<>();
+    private int size;
+
+    public void add(Book book) {
+        if (book.getAuthor() != null) {
+            booksByAuthor.computeIfAbsent(book.getAuthor(), key -> new ArrayList<>()).add(book);
+        }
+        if (book.getCategory() != null) {
+            booksByCategory.computeIfAbsent(book.getCategory().getId(), key -> new ArrayList<>()).add(book);
+        }
+        size++;
+    }
+
+    public List<Book> match(DigestRecipient recipient) {
+        return match(recipient.author(), recipient.categoryId());
+    }
+
+    /**
+     * Books matching the subscribed author or category. A book matching both is returned twice;
+     * {@link com.example.test.digest.model.CustomerDigest} drops the duplicate.
+     */
+    public List<Book> match(String author, Long categoryId) {
+        List<Book> byAuthor = author == null
+                ? Collections.emptyList()
+                : booksByAuthor.getOrDefault(author, Collections.emptyList());
+        List<Book> byCategory = categoryId == null
+                ? Collections.emptyList()
+                : booksByCategory.getOrDefault(categoryId, Collections.emptyList());
+
+        if (byCategory.isEmpty()) {
+            return byAuthor;
+        }
+        if (byAuthor.isEmpty()) {
+            return byCategory;
+        }
+        List<Book> matches = new ArrayList<>(byAuthor.size() + byCategory.size());
+        matches.addAll(byAuthor);
+        matches.addAll(byCategory);
+        return matches;
+    }
+
+    public Set<String> getAuthors() {
+        return booksByAuthor.keySet();
+    }
+
+    public Set<Long> getCategoryIds() {
+        return booksByCategory.keySet();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.digest.model.NotificationLedgerEntry;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers which books every customer has already been notified about, so re-runs, manual triggers and
+ * overlapping instant and daily notifications never send the same title twice.
+ * <p>
+ * Each customer's book ids are kept as a Roaring bitmap: sorted 16-bit arrays for sparse id ranges, plain bitsets
+ * or runs for dense ones. A customer notified about a few hundred books costs a few hundred bytes in memory and
+ * even less once serialized, and membership checks never touch the database: callers {@link #load} the entries of
+ * a whole chunk of customers in one query and filter in memory.
+ */
+@Service
+public class NotificationLedger {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final NotificationLedgerRepository notificationLedgerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public NotificationLedger(NotificationLedgerRepository notificationLedgerRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.notificationLedgerRepository = notificationLedgerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public SentBooks load(Collection<Long> customerIds) {
+        Map<Long, RoaringBitmap> sent = new HashMap<>();
+        for (NotificationLedgerEntry entry : notificationLedgerRepository.findAllById(customerIds)) {
+            sent.put(entry.getCustomerId(), decode(entry.getBookIds()));
+        }
+        return new SentBooks(sent);
+    }
+
+    /**
+     * Adds each customer's book ids to their entry. The entries of the whole batch are read in one query and written
+     * back in one transaction. Concurrent updates of the same customer, e.g. the instant and the daily digest, are
+     * detected through the entries' versions and merged by retrying the batch on fresh entries.
+     */
+    public void recordAll(Map<Long, ? extends Collection<Long>> bookIdsByCustomer) {
+        if (bookIdsByCustomer.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> merge(bookIdsByCustomer));
+                return;
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void merge(Map<Long, ? extends Collection<Long>> bookIdsByCustomer) {
+        Map<Long, NotificationLedgerEntry> entries = new HashMap<>();
+        for (NotificationLedgerEntry entry : notificationLedgerRepository.findAllById(bookIdsByCustomer.keySet())) {
+            entries.put(entry.getCustomerId(), entry);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationLedgerEntry> changed = new ArrayList<>(bookIdsByCustomer.size());
+        bookIdsByCustomer.forEach((customerId, bookIds) -> {
+            NotificationLedgerEntry entry = entries.getOrDefault(customerId,
+                    NotificationLedgerEntry.builder().customerId(customerId).build());
+            RoaringBitmap sent = entry.getBookIds() == null ? new RoaringBitmap() : decode(entry.getBookIds());
+            for (Long bookId : bookIds) {
+                sent.add(toInt(bookId));
+            }
+            entry.setBookIds(encode(sent));
+            entry.setUpdatedAt(now);
+            changed.add(entry);
+        });
+        notificationLedgerRepository.saveAll(changed);
+    }
+
+    static byte[] encode(RoaringBitmap bitmap) {
+        bitmap.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        return buffer.array();
+    }
+
+    static RoaringBitmap decode(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        try {
+            bitmap.deserialize(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt notification ledger entry", e);
+        }
+        return bitmap;
+    }
+
+    // book ids come from an identity column; Roaring bitmaps hold 32-bit values
+    private static int toInt(Long bookId) {
+        return Math.toIntExact(bookId);
+    }
+
+    /**
+     * Ledger entries of one chunk of customers.
+     */
+    public static class SentBooks {
+        private final Map<Long, RoaringBitmap> sent;
+
+        SentBooks(Map<Long, RoaringBitmap> sent) {
+            this.sent = sent;
+        }
+
+        public List<Book> unsent(Long customerId, List<Book> books) {
+            RoaringBitmap customerBooks = sent.get(customerId);
+            if (customerBooks == null) {
+                return books;
+            }
+            List<Book> unsent = new ArrayList<>(books.size());
+            for (Book book : books) {
+                if (!customerBooks.contains(toInt(book.getId()))) {
+                    unsent.add(book);
+                }
+            }
+            return unsent;
+        }
+
+        public int size() {
+            return sent.size();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.test.digest;
+
+import com.example.test.digest.model.NotificationLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface NotificationLedgerRepository extends JpaRepository<NotificationLedgerEntry, Long> {
+}
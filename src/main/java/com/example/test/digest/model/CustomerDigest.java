@@ -0,0 +1,118 @@
+package com.example.test.digest.model;
+
+import com.example.test.book.model.Book;
+import lombok.Getter;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The books one customer is told about, capped at {@code maxBooks}.
+ * <p>
+ * Matches are kept in a bounded min-heap ranked by author subscription over category subscription, then by
+ * recency, so once the heap is full a better match evicts the worst one. A customer subscribed to a broad
+ * category holds at most {@code maxBooks} books however many were added that day; the others are only counted
+ * (in a bitmap, since a day's book ids are dense) and summarised as "and N more".
+ */
+public class CustomerDigest {
+
+    private static final Comparator<RankedBook> RANKING = Comparator.comparing(RankedBook::byAuthor)
+            .thenComparing(ranked -> ranked.book().getAddedDate(), Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ranked -> ranked.book().getId());
+
+    @Getter
+    private final Long customerId;
+    @Getter
+    private final String email;
+    private final int maxBooks;
+
+    private final PriorityQueue<RankedBook> worstFirst = new PriorityQueue<>(RANKING);
+    private final Map<Long, RankedBook> kept = new HashMap<>();
+    private final RoaringBitmap matched = new RoaringBitmap();
+
+    public CustomerDigest(Long customerId, String email, int maxBooks) {
+        this.customerId = customerId;
+        this.email = email;
+        this.maxBooks = maxBooks;
+    }
+
+    /**
+     * @param subscribedAuthor the author of the subscription the books matched, {@code null} for a
+     *                         category-only subscription
+     */
+    public void addBooks(Collection<Book> matchedBooks, String subscribedAuthor) {
+        for (Book book : matchedBooks) {
+            addBook(book, subscribedAuthor != null && subscribedAuthor.equals(book.getAuthor()));
+        }
+    }
+
+    private void addBook(Book book, boolean byAuthor) {
+        matched.add(Math.toIntExact(book.getId()));
+        RankedBook ranked = new RankedBook(book, byAuthor);
+
+        RankedBook existing = kept.get(book.getId());
+        if (existing != null) {
+            if (byAuthor && !existing.byAuthor()) {
+                worstFirst.remove(existing);
+                keep(ranked);
+            }
+            return;
+        }
+        if (worstFirst.size() < maxBooks) {
+            keep(ranked);
+        } else if (RANKING.compare(ranked, worstFirst.peek()) > 0) {
+            kept.remove(worstFirst.poll().book().getId());
+            keep(ranked);
+        }
+    }
+
+    private void keep(RankedBook ranked) {
+        worstFirst.add(ranked);
+        kept.put(ranked.book().getId(), ranked);
+    }
+
+    /**
+     * The kept books, best first.
+     */
+    public List<Book> getBooks() {
+        List<RankedBook> ranked = new ArrayList<>(worstFirst);
+        ranked.sort(RANKING.reversed());
+        List<Book> books = new ArrayList<>(ranked.size());
+        ranked.forEach(rankedBook -> books.add(rankedBook.book()));
+        return books;
+    }
+
+    public List<Long> getBookIds() {
+        return getBooks().stream().map(Book::getId).toList();
+    }
+
+    /**
+     * Matched books that did not make it into the digest.
+     */
+    public int getMoreBooks() {
+        return matched.getCardinality() - kept.size();
+    }
+
+    /**
+     * Identifies the rendered body: digests with equal keys produce the same email content.
+     */
+    public ContentKey getContentKey() {
+        return new ContentKey(getBookIds(), getMoreBooks());
+    }
+
+    public int size() {
+        return kept.size();
+    }
+
+    public record ContentKey(List<Long> bookIds, int moreBooks) {
+    }
+
+    private record RankedBook(Book book, boolean byAuthor) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.test.digest.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A range of customer ids of a {@link DigestRun}, leased to one node at a time.
+ * <p>
+ * The partition covers customer ids above its initial {@code lastCustomerId} up to and including {@code rangeEnd}.
+ * Every customer up to {@code lastCustomerId} has been processed; books already emailed to customers above it are
+ * recorded in the notification ledger and skipped on resume. A node owns the partition while {@code leaseUntil} is
+ * in the future and renews the lease with every checkpoint, so a partition of a dead node is picked up by another
+ * one once the lease runs out.
+ */
+@Entity
+@Table(name = "digest_partitions", uniqueConstraints = {@UniqueConstraint(columnNames = {"run_id", "partition_no"})})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DigestPartition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "range_end", nullable = false)
+    private long rangeEnd;
+
+    @Column(name = "last_customer_id", nullable = false)
+    private long lastCustomerId;
+
+    @Enumerated(EnumType.STRING)
+    private DigestRunStatus status;
+
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    private int sent;
+    private int deferred;
+    private int failed;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
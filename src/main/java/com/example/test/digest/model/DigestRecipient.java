@@ -0,0 +1,8 @@
+package com.example.test.digest.model;
+
+/**
+ * Read model of one subscription for the digest: just what matching and addressing need, selected in one query
+ * without loading {@code Subscription} or {@code Customer} entities into the persistence context.
+ */
+public record DigestRecipient(Long subscriptionId, Long customerId, String email, String author, Long categoryId) {
+}
@@ -0,0 +1,50 @@
+package com.example.test.digest.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One daily digest run. The subscribed customer ids between {@code minCustomerId} and {@code maxCustomerId}
+ * (as seen when the run started) are split into {@code partitions} equal ranges, each tracked by a
+ * {@link DigestPartition}. {@code sent}, {@code deferred} and {@code failed} are summed up from the partitions on
+ * completion; deferred digests were parked in the outbox while the mail server was throttling or unavailable.
+ */
+@Entity
+@Table(name = "digest_runs", uniqueConstraints = {@UniqueConstraint(columnNames = {"run_date"})})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DigestRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Enumerated(EnumType.STRING)
+    private DigestRunStatus status;
+
+    private int partitions;
+
+    @Column(name = "min_customer_id", nullable = false)
+    private long minCustomerId;
+
+    @Column(name = "max_customer_id", nullable = false)
+    private long maxCustomerId;
+
+    private int sent;
+    private int deferred;
+    private int failed;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
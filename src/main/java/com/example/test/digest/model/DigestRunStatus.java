@@ -0,0 +1,7 @@
+package com.example.test.digest.model;
+
+public enum DigestRunStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED
+}
@@ -0,0 +1,32 @@
+package com.example.test.digest.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The books one customer has been notified about, as a serialized Roaring bitmap of book ids.
+ */
+@Entity
+@Table(name = "notification_ledger")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationLedgerEntry {
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Lob
+    @Column(name = "book_ids", nullable = false)
+    private byte[] bookIds;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Integer version;
+}
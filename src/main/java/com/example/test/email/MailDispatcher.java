@@ -0,0 +1,252 @@
+package com.example.test.email;
+
+import com.example.test.config.MailDispatchConfig;
+import com.example.test.email.governor.SmtpGovernor;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import com.example.test.exception.EmailServiceException;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends emails on a fixed pool of {@code concurrency} threads.
+ * <p>
+ * Emails are grouped into batches of {@code batchSize} and each batch goes through one
+ * {@link JavaMailSender#send(MimeMessage...)} call, i.e. one SMTP connection and one handshake.
+ * Messages that fail for any reason other than a rejected recipient are retried on a fresh connection
+ * up to {@code reconnectAttempts} times. Messages the server still turns away with a transient 4xx reply are recorded
+ * as deferred rather than failed, so callers can queue them for later.
+ * <p>
+ * At most {@code concurrency + queueCapacity} batches are in flight; callers block in {@link #dispatch}
+ * until a slot frees up, so a slow mail server slows the producer down instead of filling the heap.
+ * Every connection is paced by the {@link SmtpGovernor}; while its circuit is open batches are recorded as
+ * deferred without contacting the server.
+ * A failing message is recorded in the {@link DispatchReport} and does not stop the rest of the run.
+ */
+@Slf4j
+@Component
+public class MailDispatcher implements MailTransport {
+
+    private static final String MAIL_SERVER_UNAVAILABLE = "Mail server unavailable, circuit open";
+
+    private final JavaMailSender emailSender;
+    private final MailDispatchConfig config;
+    private final SmtpGovernor governor;
+    private final ExecutorService executor;
+    private final Semaphore slots;
+
+    public MailDispatcher(JavaMailSender emailSender, MailDispatchConfig config, SmtpGovernor governor) {
+        this.emailSender = emailSender;
+        this.config = config;
+        this.governor = governor;
+        this.slots = new Semaphore(config.getConcurrency() + config.getQueueCapacity());
+        this.executor = new ThreadPoolExecutor(config.getConcurrency(), config.getConcurrency(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("mail-dispatch-"));
+    }
+
+    @Override
+    public DispatchReport dispatch(Iterable<OutgoingEmail> emails, DispatchReport report) {
+        Phaser inFlight = new Phaser(1);
+        List<OutgoingEmail> batch = new ArrayList<>(config.getBatchSize());
+
+        for (OutgoingEmail email : emails) {
+            batch.add(email);
+            if (batch.size() == config.getBatchSize()) {
+                submit(batch, report, inFlight);
+                batch = new ArrayList<>(config.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(batch, report, inFlight);
+        }
+
+        inFlight.arriveAndAwaitAdvance();
+        return report;
+    }
+
+    @Override
+    public void send(OutgoingEmail email) {
+        if (!governor.acquire(1)) {
+            throw new EmailServiceException(MAIL_SERVER_UNAVAILABLE);
+        }
+        try {
+            emailSender.send(createMessage(email));
+            governor.recordSuccess();
+        } catch (MailException e) {
+            governor.recordFailure(e);
+            throw new EmailServiceException(NestedExceptionUtils.getMostSpecificCause(e).getMessage(), e);
+        } catch (MessagingException e) {
+            throw new EmailServiceException(NestedExceptionUtils.getMostSpecificCause(e).getMessage(), e);
+        }
+    }
+
+    private void submit(List<OutgoingEmail> batch, DispatchReport report, Phaser inFlight) {
+        slots.acquireUninterruptibly();
+        inFlight.register();
+        try {
+            executor.execute(() -> {
+                try {
+                    sendBatch(batch, report);
+                } finally {
+                    slots.release();
+                    inFlight.arriveAndDeregister();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            batch.forEach(email -> report.recordFailure(email, e));
+            slots.release();
+            inFlight.arriveAndDeregister();
+        }
+    }
+
+    private void sendBatch(List<OutgoingEmail> batch, DispatchReport report) {
+        Map<MimeMessage, OutgoingEmail> pending = new LinkedHashMap<>();
+        Map<String, EncodedMessage> encoded = new IdentityHashMap<>();
+        for (OutgoingEmail email : batch) {
+            try {
+                pending.put(createMessage(email, encoded), email);
+            } catch (MessagingException | RuntimeException e) {
+                fail(email, e, report);
+            }
+        }
+
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (!governor.acquire(pending.size())) {
+                pending.values().forEach(email -> report.recordDeferred(email, MAIL_SERVER_UNAVAILABLE));
+                return;
+            }
+            try {
+                emailSender.send(pending.keySet().toArray(new MimeMessage[0]));
+            } catch (MailAuthenticationException e) {
+                governor.recordFailure(e);
+                pending.values().forEach(email -> fail(email, e, report));
+                return;
+            } catch (MailSendException e) {
+                governor.recordFailure(e);
+                pending = retryable(pending, e, attempt < config.getReconnectAttempts(), report);
+                if (!pending.isEmpty()) {
+                    pauseBeforeReconnect();
+                }
+                continue;
+            } catch (RuntimeException e) {
+                governor.recordFailure(e);
+                pending.values().forEach(email -> fail(email, e, report));
+                return;
+            }
+            governor.recordSuccess();
+            pending.values().forEach(report::recordSent);
+            return;
+        }
+    }
+
+    private Map<MimeMessage, OutgoingEmail> retryable(Map<MimeMessage, OutgoingEmail> attempted, MailSendException e,
+                                                      boolean canRetry, DispatchReport report) {
+        Map<Object, Exception> failedMessages = e.getFailedMessages();
+        Map<MimeMessage, OutgoingEmail> retry = new LinkedHashMap<>();
+
+        attempted.forEach((message, email) -> {
+            Exception failure = failedMessages.isEmpty() ? e : failedMessages.get(message);
+            if (failure == null) {
+                report.recordSent(email);
+            } else if (canRetry && !(failure instanceof SendFailedException)) {
+                retry.put(message, email);
+            } else if (SmtpGovernor.isThrottling(failure)) {
+                report.recordDeferred(email, failure.getMessage());
+            } else {
+                fail(email, failure, report);
+            }
+        });
+        return retry;
+    }
+
+    private void pauseBeforeReconnect() {
+        try {
+            Thread.sleep(config.getReconnectBackoff().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fail(OutgoingEmail email, Exception e, DispatchReport report) {
+        log.warn("Problem sending the email to {}: {}", email.getTo(), e.getMessage());
+        report.recordFailure(email, e);
+    }
+
+    /**
+     * Emails that share the same rendered body instance (e.g. identical digests) are encoded once per batch;
+     * the others are parsed from those bytes and only get their own recipient and Message-ID.
+     */
+    private MimeMessage createMessage(OutgoingEmail email, Map<String, EncodedMessage> encoded)
+            throws MessagingException {
+        EncodedMessage prototype = encoded.get(email.getHtmlContent());
+        if (prototype == null || !prototype.subject().equals(email.getSubject())) {
+            MimeMessage message = createMessage(email);
+            encoded.put(email.getHtmlContent(), encode(message, email.getSubject()));
+            return message;
+        }
+
+        MimeMessage message = new MimeMessage(prototype.session(), new ByteArrayInputStream(prototype.bytes()));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(email.getTo()));
+        message.removeHeader("Message-ID");
+        return message;
+    }
+
+    private static EncodedMessage encode(MimeMessage message, String subject) throws MessagingException {
+        try {
+            message.saveChanges();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            message.writeTo(bytes);
+            return new EncodedMessage(subject, message.getSession(), bytes.toByteArray());
+        } catch (IOException e) {
+            throw new MessagingException("Cannot encode the email", e);
+        }
+    }
+
+    private record EncodedMessage(String subject, Session session, byte[] bytes) {
+    }
+
+    private MimeMessage createMessage(OutgoingEmail email) throws MessagingException {
+        MimeMessage message = emailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(email.getTo());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getHtmlContent(), true);
+        return message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
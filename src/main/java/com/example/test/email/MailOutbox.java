@@ -0,0 +1,42 @@
+package com.example.test.email;
+
+import com.example.test.email.model.OutboxMessage;
+import com.example.test.email.model.OutboxStatus;
+import com.example.test.email.model.OutgoingEmail;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes emails to the outbox table, from where {@link OutboxDispatcher} delivers them with retries.
+ */
+@AllArgsConstructor
+@Component
+public class MailOutbox {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    public void enqueue(OutgoingEmail email) {
+        outboxMessageRepository.save(pending(email, LocalDateTime.now()));
+    }
+
+    public void enqueueAll(Collection<OutgoingEmail> emails) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> messages = emails.stream().map(email -> pending(email, now)).toList();
+        outboxMessageRepository.saveAll(messages);
+    }
+
+    private static OutboxMessage pending(OutgoingEmail email, LocalDateTime now) {
+        return OutboxMessage.builder()
+                .recipient(email.getTo())
+                .subject(email.getSubject())
+                .htmlContent(email.getHtmlContent())
+                .status(OutboxStatus.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.test.email;
+
+import com.example.test.config.MailQueueConfig;
+import com.example.test.email.governor.SmtpGovernor;
+import com.example.test.email.model.DispatchFailure;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Mail worker: consumes batches from the mail queue and sends them through SMTP.
+ * <p>
+ * The batch is acknowledged as a whole once the listener returns. Messages that SMTP rejects are
+ * republished to the dead-letter exchange; if the listener itself fails the broker dead-letters the batch.
+ * While the SMTP circuit is open the listener keeps the batch and waits for the server to recover.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+@ConditionalOnProperty(prefix = "app.mail", name = "transport", havingValue = "rabbit")
+public class MailQueueListener {
+
+    static final String FAILURE_REASON_HEADER = "x-failure-reason";
+
+    private static final long MIN_RETRY_PAUSE_MILLIS = 100;
+
+    private final MailDispatcher mailDispatcher;
+    private final SmtpGovernor governor;
+    private final RabbitTemplate rabbitTemplate;
+    private final MailQueueConfig config;
+
+    @RabbitListener(id = "mailQueueListener", queues = "${app.mail.queue.queue:library.mail.outgoing}",
+            containerFactory = "mailListenerContainerFactory")
+    public void onEmails(List<OutgoingEmail> emails) {
+        List<OutgoingEmail> batch = emails;
+        while (!batch.isEmpty()) {
+            DispatchReport report = mailDispatcher.dispatch(batch);
+
+            int deadLettered = 0;
+            for (DispatchFailure failure : report.getFailures()) {
+                if (!failure.isDeferred()) {
+                    deadLetter(failure);
+                    deadLettered++;
+                }
+            }
+            if (deadLettered > 0) {
+                log.warn("Mail batch of {} delivered with {} dead-lettered", batch.size(), deadLettered);
+            }
+
+            batch = report.getDeferred();
+            if (!batch.isEmpty()) {
+                // hold on to the batch (and the prefetched ones behind it) until the mail server recovers
+                log.warn("Mail server unavailable, retrying {} emails in {}", batch.size(), governor.getRetryAfter());
+                pause(governor.getRetryAfter());
+            }
+        }
+    }
+
+    private void deadLetter(DispatchFailure failure) {
+        rabbitTemplate.convertAndSend(config.getDeadLetterExchange(), config.getQueue(), failure.getEmail(), message -> {
+            message.getMessageProperties().setHeader(FAILURE_REASON_HEADER, failure.getReason());
+            return message;
+        });
+    }
+
+    private static void pause(Duration duration) {
+        try {
+            Thread.sleep(Math.max(duration.toMillis(), MIN_RETRY_PAUSE_MILLIS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImmediateRequeueAmqpException("Interrupted while waiting for the mail server", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.test.email;
+
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+
+public interface MailTransport {
+
+    void send(OutgoingEmail email);
+
+    default DispatchReport dispatch(Iterable<OutgoingEmail> emails) {
+        return dispatch(emails, new DispatchReport());
+    }
+
+    /**
+     * Sends every email and records the outcome in {@code report}, which is returned once all emails are done.
+     */
+    DispatchReport dispatch(Iterable<OutgoingEmail> emails, DispatchReport report);
+}
@@ -0,0 +1,128 @@
+package com.example.test.email;
+
+import com.example.test.config.MailOutboxConfig;
+import com.example.test.email.model.DispatchFailure;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutboxMessage;
+import com.example.test.email.model.OutgoingEmail;
+import com.example.test.email.model.OutboxStatus;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Drains the email outbox outside of any business transaction.
+ * Each page of due messages is handed to {@link MailTransport#dispatch} as one batch.
+ * <p>
+ * Several instances drain the same table, so a page is claimed before it is sent: a conditional update leases the
+ * messages to this drain for {@code app.mail.outbox.lease-duration}, and only the rows it won are sent. Messages of a
+ * dispatcher that died are picked up by another one once the lease runs out.
+ * <p>
+ * Sent messages are deleted; failed ones are retried with exponential backoff and marked
+ * {@link OutboxStatus#FAILED} once {@code app.mail.outbox.max-attempts} is reached. Messages deferred because the
+ * mail server is unavailable are retried after {@code retry-backoff} without using up an attempt.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+public class OutboxDispatcher {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final MailTransport mailTransport;
+    private final MailOutboxConfig config;
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:5000}")
+    public int drain() {
+        String owner = UUID.randomUUID().toString();
+        int sent = 0;
+        List<Long> due;
+
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            due = outboxMessageRepository.findDueIds(OutboxStatus.PENDING, now, PageRequest.of(0, config.getBatchSize()));
+            if (due.isEmpty() || outboxMessageRepository.claim(due, owner, now, now.plus(config.getLeaseDuration()),
+                    OutboxStatus.PENDING) == 0) {
+                continue;
+            }
+
+            sent += deliver(outboxMessageRepository.findClaimed(due, owner));
+        } while (due.size() == config.getBatchSize());
+
+        return sent;
+    }
+
+    /**
+     * Messages are tracked by id, and the emails handed to the transport are mapped back by instance: two messages
+     * with the same recipient, subject and body are still settled one by one.
+     */
+    private int deliver(List<OutboxMessage> batch) {
+        Map<Long, OutboxMessage> messages = new LinkedHashMap<>();
+        Map<OutgoingEmail, Long> messageIds = new IdentityHashMap<>();
+        List<OutgoingEmail> emails = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            OutgoingEmail email = message.toOutgoingEmail();
+            messages.put(message.getId(), message);
+            messageIds.put(email, message.getId());
+            emails.add(email);
+        }
+
+        DispatchReport report = mailTransport.dispatch(emails);
+
+        for (DispatchFailure failure : report.getFailures()) {
+            OutboxMessage message = messages.remove(messageIds.get(failure.getEmail()));
+            if (failure.isDeferred()) {
+                postpone(message);
+            } else {
+                reschedule(message, failure.getReason());
+            }
+        }
+        outboxMessageRepository.deleteAll(messages.values());
+        return messages.size();
+    }
+
+    /**
+     * The mail server was not even contacted, so the attempt does not count towards {@code max-attempts}.
+     */
+    private void postpone(OutboxMessage message) {
+        message.setNextAttemptAt(LocalDateTime.now().plus(config.getRetryBackoff()));
+        release(message);
+    }
+
+    private void reschedule(OutboxMessage message, String error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(truncate(error));
+
+        if (attempts >= config.getMaxAttempts()) {
+            message.setStatus(OutboxStatus.FAILED);
+            log.error("Giving up on email {} to {} after {} attempts: {}",
+                    message.getId(), message.getRecipient(), attempts, error);
+        } else {
+            message.setNextAttemptAt(LocalDateTime.now().plus(config.getRetryBackoff().multipliedBy(1L << (attempts - 1))));
+            log.warn("Email {} to {} failed (attempt {}), retrying at {}",
+                    message.getId(), message.getRecipient(), attempts, message.getNextAttemptAt());
+        }
+
+        release(message);
+    }
+
+    private void release(OutboxMessage message) {
+        message.setOwner(null);
+        message.setLeaseUntil(null);
+        outboxMessageRepository.save(message);
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 255 ? error : error.substring(0, 255);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.test.email;
+
+import com.example.test.email.model.OutboxMessage;
+import com.example.test.email.model.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    @Query("SELECT m.id FROM OutboxMessage m WHERE m.status = :status AND m.nextAttemptAt <= :now " +
+            "AND (m.leaseUntil IS NULL OR m.leaseUntil < :now) ORDER BY m.id")
+    List<Long> findDueIds(@Param("status") OutboxStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Leases those of {@code ids} that are still due and not leased by anyone else to {@code owner}.
+     * Returns how many were claimed; the others were taken by another dispatcher in the meantime.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE OutboxMessage m SET m.owner = :owner, m.leaseUntil = :leaseUntil " +
+            "WHERE m.id IN :ids AND m.status = :status AND m.nextAttemptAt <= :now " +
+            "AND (m.leaseUntil IS NULL OR m.leaseUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("status") OutboxStatus status);
+
+    @Query("SELECT m FROM OutboxMessage m WHERE m.id IN :ids AND m.owner = :owner ORDER BY m.id")
+    List<OutboxMessage> findClaimed(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    long countByStatus(OutboxStatus status);
+}
@@ -0,0 +1,47 @@
+package com.example.test.email;
+
+import com.example.test.config.MailQueueConfig;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import com.example.test.exception.EmailServiceException;
+import lombok.AllArgsConstructor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes emails to the mail queue instead of talking to SMTP; {@link MailQueueListener} delivers them.
+ */
+@Primary
+@AllArgsConstructor
+@Component
+@ConditionalOnProperty(prefix = "app.mail", name = "transport", havingValue = "rabbit")
+public class RabbitMailTransport implements MailTransport {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MailQueueConfig config;
+
+    @Override
+    public void send(OutgoingEmail email) {
+        try {
+            rabbitTemplate.convertAndSend(config.getExchange(), config.getQueue(), email);
+        } catch (AmqpException e) {
+            throw new EmailServiceException("Problem publishing the email to " + email.getTo(), e);
+        }
+    }
+
+    @Override
+    public DispatchReport dispatch(Iterable<OutgoingEmail> emails, DispatchReport report) {
+        for (OutgoingEmail email : emails) {
+            try {
+                send(email);
+                report.recordSent(email);
+            } catch (EmailServiceException e) {
+                report.recordFailure(email, e);
+            }
+        }
+        return report;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.test.email;
+
+import com.example.test.config.MailSinkConfig;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Dry-run stand-in for the SMTP server, active with {@code app.mail.sink.enabled=true}.
+ * <p>
+ * Everything up to the wire runs as in production: digests are rendered, batched by the {@link MailDispatcher},
+ * encoded into MIME and paced by the governor (set {@code app.mail.governor.enabled=false} to measure the
+ * pipeline itself). The encoded messages are then counted and, with {@code app.mail.sink.directory}, written
+ * out as {@code .eml} files instead of being sent. One {@code send} call counts as one connection.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "app.mail.sink", name = "enabled", havingValue = "true")
+public class SinkMailSender extends JavaMailSenderImpl {
+
+    private final Path directory;
+    private final Duration latency;
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile Consumer<MimeMessage> deliveryListener = message -> {
+    };
+
+    public SinkMailSender(MailSinkConfig config) {
+        this.directory = config.getDirectory() == null ? null : Path.of(config.getDirectory());
+        this.latency = config.getLatency();
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create the mail sink directory " + directory, e);
+            }
+        }
+        log.warn("Mail sink enabled, no email will be sent{}", directory == null ? "" : "; writing to " + directory);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        connections.incrementAndGet();
+        pause();
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        for (MimeMessage message : mimeMessages) {
+            try {
+                if (message.getSentDate() == null) {
+                    message.setSentDate(new Date());
+                }
+                message.saveChanges();
+                bytes.addAndGet(write(message, messages.incrementAndGet()));
+                deliveryListener.accept(message);
+            } catch (MessagingException | IOException e) {
+                failedMessages.put(message, e);
+            }
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private long write(MimeMessage message, long sequence) throws IOException, MessagingException {
+        OutputStream target = directory == null
+                ? OutputStream.nullOutputStream()
+                : Files.newOutputStream(directory.resolve(sequence + ".eml"));
+        try (ByteCounter out = new ByteCounter(target)) {
+            message.writeTo(out);
+            return out.count;
+        }
+    }
+
+    private void pause() {
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Called on the sending thread for every accepted message, e.g. to measure delivery latency.
+     */
+    public void setDeliveryListener(Consumer<MimeMessage> deliveryListener) {
+        this.deliveryListener = deliveryListener;
+    }
+
+    public long getConnections() {
+        return connections.get();
+    }
+
+    public long getMessages() {
+        return messages.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    private static class ByteCounter extends FilterOutputStream {
+        private long count;
+
+        ByteCounter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
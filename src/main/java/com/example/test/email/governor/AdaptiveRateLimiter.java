@@ -0,0 +1,85 @@
+package com.example.test.email.governor;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket whose rate follows AIMD: every accepted batch adds {@code increase} messages per second,
+ * every throttled or failed one multiplies the rate by {@code decreaseFactor}, within {@code [minRate, maxRate]}.
+ * <p>
+ * The bucket is kept as the time the next permit becomes free. Up to {@code burst} permits saved up while idle
+ * are handed out without waiting; a caller asking for more than is available takes them on credit and the wait
+ * is paid by the next caller, so a batch larger than the burst never blocks forever.
+ */
+public class AdaptiveRateLimiter {
+
+    @FunctionalInterface
+    public interface Sleeper {
+        void sleep(long nanos);
+    }
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double increase;
+    private final double decreaseFactor;
+    private final int burst;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+
+    private double rate;
+    private long nextFreeNanos;
+
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, double increase,
+                               double decreaseFactor, int burst, LongSupplier clock, Sleeper sleeper) {
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increase = increase;
+        this.decreaseFactor = decreaseFactor;
+        this.burst = burst;
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+        this.nextFreeNanos = clock.getAsLong() - burstNanos();
+    }
+
+    public static AdaptiveRateLimiter.Sleeper parking() {
+        return LockSupport::parkNanos;
+    }
+
+    /**
+     * Blocks until {@code permits} messages may be sent; returns the nanoseconds spent waiting.
+     */
+    public long acquire(int permits) {
+        long wait = reserve(permits);
+        if (wait > 0) {
+            sleeper.sleep(wait);
+        }
+        return wait;
+    }
+
+    private synchronized long reserve(int permits) {
+        long now = clock.getAsLong();
+        nextFreeNanos = Math.max(nextFreeNanos, now - burstNanos());
+        long wait = Math.max(0, nextFreeNanos - now);
+        nextFreeNanos += (long) (permits * NANOS_PER_SECOND / rate);
+        return wait;
+    }
+
+    public synchronized void increase() {
+        rate = Math.min(maxRate, rate + increase);
+    }
+
+    public synchronized void decrease() {
+        rate = Math.max(minRate, rate * decreaseFactor);
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private long burstNanos() {
+        return (long) (burst * NANOS_PER_SECOND / rate);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.test.email.governor;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Opens after {@code failureThreshold} consecutive failed sends and rejects every send while open.
+ * Once {@code openNanos} have passed a single trial send is let through: its success closes the breaker,
+ * its failure opens it again.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openNanos, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+        this.clock = clock;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == CircuitState.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = CircuitState.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = CircuitState.CLOSED;
+    }
+
+    /**
+     * @return {@code true} if this failure opened the breaker
+     */
+    public synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == CircuitState.HALF_OPEN || (state == CircuitState.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = CircuitState.OPEN;
+            openedAt = clock.getAsLong();
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    /**
+     * Nanoseconds until an open breaker lets a trial send through, 0 if it is not open.
+     */
+    public synchronized long getRemainingOpenNanos() {
+        return state == CircuitState.OPEN ? Math.max(0, openNanos - (clock.getAsLong() - openedAt)) : 0;
+    }
+}
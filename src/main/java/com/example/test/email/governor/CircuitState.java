@@ -0,0 +1,7 @@
+package com.example.test.email.governor;
+
+public enum CircuitState {
+    CLOSED,
+    HALF_OPEN,
+    OPEN
+}
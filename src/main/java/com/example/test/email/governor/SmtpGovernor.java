@@ -0,0 +1,158 @@
+package com.example.test.email.governor;
+
+import com.example.test.config.MailGovernorConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.SendFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Guards every SMTP connection: a {@link CircuitBreaker} fast-fails sends while the server is unhealthy and an
+ * {@link AdaptiveRateLimiter} paces the rest, backing off when the server throttles or times out.
+ * <p>
+ * Callers ask for permission with {@link #acquire} before a send and report the outcome with
+ * {@link #recordSuccess} or {@link #recordFailure}. Rejected recipients say nothing about the server and count as
+ * a success. The rate and breaker state are published as the {@code mail.smtp.rate} and
+ * {@code mail.smtp.circuit.state} gauges (0 closed, 1 half-open, 2 open).
+ */
+@Slf4j
+@Component
+public class SmtpGovernor {
+
+    // 4xx replies are the server asking us to slow down or come back later
+    private static final Pattern TRANSIENT_REPLY = Pattern.compile("^4\\d\\d[ -].*", Pattern.DOTALL);
+
+    private final boolean enabled;
+    private final AdaptiveRateLimiter rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter throttled;
+    private final Counter rejected;
+
+    @Autowired
+    public SmtpGovernor(MailGovernorConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::nanoTime, AdaptiveRateLimiter.parking());
+    }
+
+    public SmtpGovernor(MailGovernorConfig config, MeterRegistry meterRegistry, LongSupplier clock,
+                        AdaptiveRateLimiter.Sleeper sleeper) {
+        this.enabled = config.isEnabled();
+        this.rateLimiter = new AdaptiveRateLimiter(config.getInitialRate(), config.getMinRate(), config.getMaxRate(),
+                config.getRateIncrease(), config.getRateDecreaseFactor(), config.getBurst(), clock, sleeper);
+        this.circuitBreaker = new CircuitBreaker(config.getFailureThreshold(), config.getOpenDuration().toNanos(), clock);
+
+        Gauge.builder("mail.smtp.rate", this, SmtpGovernor::getRate)
+                .description("Messages per second the SMTP rate limiter currently allows")
+                .register(meterRegistry);
+        Gauge.builder("mail.smtp.circuit.state", this, governor -> governor.getState().ordinal())
+                .description("SMTP circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+        this.throttled = Counter.builder("mail.smtp.throttled")
+                .description("Sends the SMTP server throttled, timed out or failed")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("mail.smtp.rejected")
+                .description("Sends rejected without contacting the server because the circuit was open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits until {@code messages} may be sent. Returns {@code false} straight away if the circuit is open.
+     */
+    public boolean acquire(int messages) {
+        if (!enabled) {
+            return true;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            rejected.increment();
+            return false;
+        }
+        rateLimiter.acquire(messages);
+        return true;
+    }
+
+    public void recordSuccess() {
+        if (enabled) {
+            circuitBreaker.recordSuccess();
+            rateLimiter.increase();
+        }
+    }
+
+    public void recordFailure(Exception e) {
+        if (!enabled) {
+            return;
+        }
+        if (isRecipientRejection(e)) {
+            recordSuccess();
+            return;
+        }
+        throttled.increment();
+        rateLimiter.decrease();
+        if (circuitBreaker.recordFailure()) {
+            log.warn("SMTP circuit opened after repeated failures, last: {}", e.getMessage());
+        }
+        if (isThrottling(e)) {
+            log.info("SMTP server throttled, send rate lowered to {}/s", String.format("%.1f", getRate()));
+        }
+    }
+
+    public double getRate() {
+        return rateLimiter.getRate();
+    }
+
+    public CircuitState getState() {
+        return enabled ? circuitBreaker.getState() : CircuitState.CLOSED;
+    }
+
+    /**
+     * How long until an open circuit lets a trial send through; zero if it is not open.
+     */
+    public Duration getRetryAfter() {
+        return Duration.ofNanos(circuitBreaker.getRemainingOpenNanos());
+    }
+
+    /**
+     * A batch where only individual recipients were refused with a permanent error.
+     */
+    static boolean isRecipientRejection(Exception e) {
+        if (!(e instanceof MailSendException sendException) || sendException.getFailedMessages().isEmpty()) {
+            return false;
+        }
+        for (Map.Entry<Object, Exception> failure : sendException.getFailedMessages().entrySet()) {
+            if (!(failure.getValue() instanceof SendFailedException) || isThrottling(failure.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A 4xx reply or a timeout: the server wants us to come back later rather than refusing the message.
+     */
+    public static boolean isThrottling(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException) {
+                return true;
+            }
+            if (cause.getMessage() != null && TRANSIENT_REPLY.matcher(cause.getMessage()).matches()) {
+                return true;
+            }
+            if (cause instanceof MailSendException sendException) {
+                for (Exception failure : sendException.getFailedMessages().values()) {
+                    if (failure != e && isThrottling(failure)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.test.email.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class DispatchFailure {
+    private final OutgoingEmail email;
+    private final String reason;
+
+    /**
+     * The email was not attempted because the mail server is unavailable; it can be sent again later as is.
+     */
+    private final boolean deferred;
+
+    public DispatchFailure(OutgoingEmail email, String reason) {
+        this(email, reason, false);
+    }
+
+    public String getTo() {
+        return email.getTo();
+    }
+}
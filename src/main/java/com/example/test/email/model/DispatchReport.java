@@ -0,0 +1,79 @@
+package com.example.test.email.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class DispatchReport {
+
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger deferred = new AtomicInteger();
+    private final List<DispatchFailure> failures = Collections.synchronizedList(new ArrayList<>());
+    private final Consumer<OutgoingEmail> onSent;
+
+    public DispatchReport() {
+        this(email -> {
+        });
+    }
+
+    /**
+     * @param onSent called once for every email accepted by the transport, possibly from a worker thread
+     */
+    public DispatchReport(Consumer<OutgoingEmail> onSent) {
+        this.onSent = onSent;
+    }
+
+    public void recordSent(OutgoingEmail email) {
+        sent.incrementAndGet();
+        onSent.accept(email);
+    }
+
+    public void recordFailure(OutgoingEmail email, Exception e) {
+        failed.incrementAndGet();
+        failures.add(new DispatchFailure(email, e.getMessage()));
+    }
+
+    public void recordDeferred(OutgoingEmail email, String reason) {
+        deferred.incrementAndGet();
+        failures.add(new DispatchFailure(email, reason, true));
+    }
+
+    public int getSent() {
+        return sent.get();
+    }
+
+    /**
+     * Emails that could not be delivered. Deferred emails are not counted, see {@link #getDeferredCount()}.
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Emails held back while the mail server is throttling or unavailable, to be sent again later.
+     */
+    public int getDeferredCount() {
+        return deferred.get();
+    }
+
+    public List<OutgoingEmail> getDeferred() {
+        synchronized (failures) {
+            return failures.stream().filter(DispatchFailure::isDeferred).map(DispatchFailure::getEmail).toList();
+        }
+    }
+
+    public List<DispatchFailure> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<>(failures);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DispatchReport{sent=" + getSent() + ", deferred=" + getDeferredCount() + ", failed=" + getFailed()
+                + "}";
+    }
+}
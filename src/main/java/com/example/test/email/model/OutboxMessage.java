@@ -0,0 +1,53 @@
+package com.example.test.email.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String recipient;
+    private String subject;
+
+    @Lob
+    @Column(name = "html_content")
+    private String htmlContent;
+
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status;
+
+    private int attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * The drain that is sending the message; other dispatchers leave it alone until {@code leaseUntil}.
+     */
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    public OutgoingEmail toOutgoingEmail() {
+        return new OutgoingEmail(recipient, subject, htmlContent);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.test.email.model;
+
+public enum OutboxStatus {
+    PENDING,
+    FAILED
+}
@@ -0,0 +1,12 @@
+package com.example.test.email.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class OutgoingEmail {
+    private final String to;
+    private final String subject;
+    private final String htmlContent;
+}
@@ -0,0 +1,79 @@
+package com.example.test.email.template;
+
+import com.example.test.book.model.Book;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Email bodies rendered from the templates in {@code templates/email}. Templates are compiled once at startup
+ * and rendered into pooled buffers.
+ */
+@Component
+public class EmailTemplates {
+
+    private static final int POOL_SIZE = 32;
+    private static final int INITIAL_BUFFER_CHARS = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER_CHARS = 256 * 1024;
+
+    private final HtmlTemplate confirmation = load("confirmation.html", List.of("confirmationUrl"));
+    private final HtmlTemplate newBooks = load("new-books.html", List.of("books", "more"));
+    private final HtmlBufferPool buffers = new HtmlBufferPool(POOL_SIZE, INITIAL_BUFFER_CHARS, MAX_RETAINED_BUFFER_CHARS);
+
+    public String confirmation(String confirmationUrl) {
+        return render(confirmation, confirmationUrl);
+    }
+
+    public String newBooks(List<Book> books) {
+        return newBooks(books, 0);
+    }
+
+    /**
+     * @param moreBooks matched books left out of the list, summarised in one line
+     */
+    public String newBooks(List<Book> books, int moreBooks) {
+        List<Object[]> more = moreBooks > 0 ? List.<Object[]>of(new Object[]{moreBooks}) : List.of();
+        return render(newBooks, new AbstractList<Object[]>() {
+            @Override
+            public Object[] get(int index) {
+                Book book = books.get(index);
+                return new Object[]{book.getTitle(), book.getAuthor(),
+                        book.getCategory() == null ? null : book.getCategory().getCategoryName()};
+            }
+
+            @Override
+            public int size() {
+                return books.size();
+            }
+        }, more);
+    }
+
+    private String render(HtmlTemplate template, Object... values) {
+        HtmlBuffer buffer = buffers.acquire();
+        try {
+            template.render(buffer, values);
+            return buffer.toString();
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    private static HtmlTemplate load(String name, List<String> expectedSlots) {
+        try (InputStream in = new ClassPathResource("templates/email/" + name).getInputStream()) {
+            HtmlTemplate template = HtmlTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            if (!template.getSlots().equals(expectedSlots)) {
+                throw new IllegalStateException("Template " + name + " has slots " + template.getSlots()
+                        + ", expected " + expectedSlots);
+            }
+            return template;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load email template " + name, e);
+        }
+    }
+}
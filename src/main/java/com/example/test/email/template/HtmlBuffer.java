@@ -0,0 +1,69 @@
+package com.example.test.email.template;
+
+/**
+ * Reusable character buffer that HTML templates render into. Dynamic values are copied into a scratch array
+ * once and escaped from there, so unescaped runs go in with a single bulk append.
+ */
+public class HtmlBuffer {
+
+    private final StringBuilder chars;
+    private char[] scratch = new char[256];
+
+    public HtmlBuffer(int initialCapacity) {
+        this.chars = new StringBuilder(initialCapacity);
+    }
+
+    public void write(String fragment) {
+        chars.append(fragment);
+    }
+
+    public void writeEscaped(String value) {
+        int length = value.length();
+        if (scratch.length < length) {
+            scratch = new char[Math.max(length, scratch.length * 2)];
+        }
+        value.getChars(0, length, scratch, 0);
+
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = scratch[i];
+            if (c <= '>' && entityFor(c) != null) {
+                chars.append(scratch, start, i - start).append(entityFor(c));
+                start = i + 1;
+            }
+        }
+        if (start == 0) {
+            chars.append(value);
+        } else {
+            chars.append(scratch, start, length - start);
+        }
+    }
+
+    public int length() {
+        return chars.length();
+    }
+
+    public int capacity() {
+        return chars.capacity();
+    }
+
+    public void reset() {
+        chars.setLength(0);
+    }
+
+    @Override
+    public String toString() {
+        return chars.toString();
+    }
+
+    private static String entityFor(char c) {
+        return switch (c) {
+            case '&' -> "&amp;";
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            case '"' -> "&quot;";
+            case '\'' -> "&#39;";
+            default -> null;
+        };
+    }
+}
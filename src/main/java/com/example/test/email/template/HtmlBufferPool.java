@@ -0,0 +1,37 @@
+package com.example.test.email.template;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of {@link HtmlBuffer}s. Buffers that grew beyond {@code maxRetainedChars} while rendering
+ * an unusually large email are dropped instead of being kept around for the lifetime of the pool.
+ */
+public class HtmlBufferPool {
+
+    private final BlockingQueue<HtmlBuffer> buffers;
+    private final int initialCapacity;
+    private final int maxRetainedChars;
+
+    public HtmlBufferPool(int size, int initialCapacity, int maxRetainedChars) {
+        this.buffers = new ArrayBlockingQueue<>(size);
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedChars = maxRetainedChars;
+    }
+
+    public HtmlBuffer acquire() {
+        HtmlBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : new HtmlBuffer(initialCapacity);
+    }
+
+    public void release(HtmlBuffer buffer) {
+        if (buffer.capacity() <= maxRetainedChars) {
+            buffer.reset();
+            buffers.offer(buffer);
+        }
+    }
+
+    public int available() {
+        return buffers.size();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.test.email.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * HTML template compiled once into static fragments and slots.
+ * <p>
+ * {@code {{name}}} is an escaped value slot and {@code {{#name}}...{{/name}}} is a section repeated once per
+ * row. Values are passed positionally in the order the slots first appear (see {@link #getSlots()});
+ * a section takes an {@code Iterable<Object[]>} whose arrays follow the slot order of the section body.
+ */
+public class HtmlTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final Segment[] segments;
+    private final List<String> slots;
+
+    private HtmlTemplate(List<Segment> segments, List<String> slots) {
+        this.segments = segments.toArray(new Segment[0]);
+        this.slots = Collections.unmodifiableList(slots);
+    }
+
+    public static HtmlTemplate compile(String source) {
+        return new Parser(source).parse(null);
+    }
+
+    public List<String> getSlots() {
+        return slots;
+    }
+
+    public void render(HtmlBuffer out, Object... values) {
+        if (values.length != slots.size()) {
+            throw new IllegalArgumentException("Expected values for " + slots + " but got " + values.length);
+        }
+        for (Segment segment : segments) {
+            if (segment.text != null) {
+                out.write(segment.text);
+            } else if (segment.section != null) {
+                renderSection(out, segment.section, values[segment.slot]);
+            } else if (values[segment.slot] != null) {
+                out.writeEscaped(values[segment.slot].toString());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void renderSection(HtmlBuffer out, HtmlTemplate body, Object rows) {
+        if (rows != null) {
+            for (Object[] row : (Iterable<Object[]>) rows) {
+                body.render(out, row);
+            }
+        }
+    }
+
+    /**
+     * Either static text, an escaped slot, or a section repeated per row. Kept as one record type so
+     * rendering stays a monomorphic loop.
+     */
+    private record Segment(String text, int slot, HtmlTemplate section) {
+    }
+
+    private static class Parser {
+        private final String source;
+        private int position;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        HtmlTemplate parse(String section) {
+            List<Segment> segments = new ArrayList<>();
+            List<String> slots = new ArrayList<>();
+
+            while (position < source.length()) {
+                int open = source.indexOf(OPEN, position);
+                if (open < 0) {
+                    addText(segments, source.substring(position));
+                    position = source.length();
+                    break;
+                }
+                int close = source.indexOf(CLOSE, open);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed tag at " + open);
+                }
+                addText(segments, source.substring(position, open));
+                String tag = source.substring(open + OPEN.length(), close).trim();
+                position = close + CLOSE.length();
+
+                if (tag.startsWith("/")) {
+                    if (!tag.substring(1).equals(section)) {
+                        throw new IllegalArgumentException("Unexpected {{" + tag + "}} at " + open);
+                    }
+                    return new HtmlTemplate(segments, slots);
+                } else if (tag.startsWith("#")) {
+                    String name = tag.substring(1);
+                    segments.add(new Segment(null, slotIndex(slots, name), parse(name)));
+                } else {
+                    segments.add(new Segment(null, slotIndex(slots, tag), null));
+                }
+            }
+
+            if (section != null) {
+                throw new IllegalArgumentException("Unclosed section {{#" + section + "}}");
+            }
+            return new HtmlTemplate(segments, slots);
+        }
+
+        private static void addText(List<Segment> segments, String text) {
+            if (!text.isEmpty()) {
+                segments.add(new Segment(text, -1, null));
+            }
+        }
+
+        private static int slotIndex(List<String> slots, String name) {
+            int index = slots.indexOf(name);
+            if (index < 0) {
+                slots.add(name);
+                index = slots.size() - 1;
+            }
+            return index;
+        }
+    }
+}
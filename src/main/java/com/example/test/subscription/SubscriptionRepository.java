@@ -1,17 +1,44 @@
 package com.example.test.subscription;
 
 
+import com.example.test.digest.model.DigestRecipient;
 import com.example.test.subscription.model.Subscription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
 
-    @Query("SELECT s FROM Subscription s WHERE s.author IN :authors OR s.category.id IN :categories")
-    List<Subscription> findByAuthorsOrCategories(@Param("authors") Set<String> authors, @Param("categories") Set<Long> categories);
+    @Query("SELECT new com.example.test.digest.model.DigestRecipient(s.id, c.id, c.email, s.author, s.category.id) " +
+            "FROM Subscription s JOIN s.customer c " +
+            "WHERE (s.author IN :authors OR s.category.id IN :categories) AND s.id > :lastId ORDER BY s.id")
+    List<DigestRecipient> findRecipientsByAuthorsOrCategoriesAfter(@Param("authors") Set<String> authors,
+                                                                   @Param("categories") Set<Long> categories,
+                                                                   @Param("lastId") long lastId, Pageable limit);
+
+    @Query("SELECT DISTINCT s.customer.id FROM Subscription s " +
+            "WHERE (s.author IN :authors OR s.category.id IN :categories) " +
+            "AND s.customer.id > :lastCustomerId AND s.customer.id <= :upToCustomerId ORDER BY s.customer.id")
+    List<Long> findCustomerIdsByAuthorsOrCategoriesBetween(@Param("authors") Set<String> authors,
+                                                           @Param("categories") Set<Long> categories,
+                                                           @Param("lastCustomerId") long lastCustomerId,
+                                                           @Param("upToCustomerId") long upToCustomerId,
+                                                           Pageable limit);
+
+    @Query("SELECT MIN(s.customer.id) FROM Subscription s")
+    Optional<Long> findMinCustomerId();
+
+    @Query("SELECT MAX(s.customer.id) FROM Subscription s")
+    Optional<Long> findMaxCustomerId();
+
+    @Query("SELECT new com.example.test.digest.model.DigestRecipient(s.id, c.id, c.email, s.author, s.category.id) " +
+            "FROM Subscription s JOIN s.customer c WHERE c.id IN :customerIds")
+    List<DigestRecipient> findRecipientsByCustomerIds(@Param("customerIds") Collection<Long> customerIds);
 
 }
\ No newline at end of file
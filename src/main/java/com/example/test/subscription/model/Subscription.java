@@ -11,7 +11,9 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "subscriptions")
+@Table(name = "subscriptions", indexes = {
+        @Index(name = "idx_subscriptions_author_customer_id", columnList = "author, customer_id"),
+        @Index(name = "idx_subscriptions_category_id_customer_id", columnList = "category_id, customer_id")})
 public class Subscription {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,7 +1,6 @@
 package com.example.test.subscription.model;
 
-import com.example.test.category.BookCategory;
-import com.example.test.category.BookCategoryRepository;
+import com.example.test.category.BookCategoryRegistry;
 import com.example.test.customer.CustomerRepository;
 import com.example.test.customer.model.Customer;
 import lombok.AllArgsConstructor;
@@ -12,7 +11,7 @@ import org.springframework.stereotype.Component;
 public class SubscriptionMapper {
 
     private final CustomerRepository customerRepository;
-    private final BookCategoryRepository bookCategoryRepository;
+    private final BookCategoryRegistry bookCategoryRegistry;
 
     public Subscription fromCreateCommand(CreateSubscriptionCommand command) {
         Subscription subscription = new Subscription();
@@ -23,9 +22,7 @@ public class SubscriptionMapper {
 
         subscription.setAuthor(command.getAuthor());
 
-        BookCategory category = bookCategoryRepository.findById(command.getCategoryId())
-                .orElseThrow(() -> new IllegalArgumentException("Invalid category ID"));
-        subscription.setCategory(category);
+        subscription.setCategory(bookCategoryRegistry.get(command.getCategoryId()));
 
         return subscription;
     }
@@ -8,10 +8,10 @@ VALUES ('Horror'),
 INSERT INTO customers (first_name, last_name, email, email_confirmed, confirmation_token)
 VALUES ('John', 'Doe', 'john.doe@example.com', FALSE, 'token123'),
        ('Jane', 'Doe', 'jane.doe@example.com', TRUE, 'token456');
-INSERT INTO books (author, title, category_id, version)
-VALUES ('Stephen King', 'IT', (SELECT id FROM book_categories WHERE category_name = 'Horror'), 1),
-       ('J.R.R. Tolkien', 'The Hobbit', (SELECT id FROM book_categories WHERE category_name = 'Fantasy'), 1),
-       ('Isaac Asimov', 'Foundation', (SELECT id FROM book_categories WHERE category_name = 'Science Fiction'), 1);
+INSERT INTO books (id, author, title, category_id, version)
+VALUES (NEXT VALUE FOR books_seq, 'Stephen King', 'IT', (SELECT id FROM book_categories WHERE category_name = 'Horror'), 1),
+       (NEXT VALUE FOR books_seq, 'J.R.R. Tolkien', 'The Hobbit', (SELECT id FROM book_categories WHERE category_name = 'Fantasy'), 1),
+       (NEXT VALUE FOR books_seq, 'Isaac Asimov', 'Foundation', (SELECT id FROM book_categories WHERE category_name = 'Science Fiction'), 1);
 INSERT INTO subscriptions (customer_id, author, category_id, version)
 VALUES ((SELECT id FROM customers WHERE email = 'john.doe@example.com'), 'Stephen King',
         (SELECT id FROM book_categories WHERE category_name = 'Horror'), 1),
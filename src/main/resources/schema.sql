@@ -14,15 +14,20 @@ CREATE TABLE IF NOT EXISTS book_categories (
     CONSTRAINT uk_category_name UNIQUE (category_name)
     );
 
+CREATE SEQUENCE IF NOT EXISTS books_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS books (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     author VARCHAR(100) NOT NULL,
     title VARCHAR(255) NOT NULL,
     category_id BIGINT,
+    added_date DATE,
     version INTEGER NOT NULL DEFAULT 1,
     CONSTRAINT uk_author_title UNIQUE (author, title),
     FOREIGN KEY (category_id) REFERENCES book_categories(id) ON DELETE CASCADE
     );
+
+CREATE INDEX IF NOT EXISTS idx_books_added_date_id ON books(added_date, id);
  CREATE TABLE IF NOT EXISTS subscriptions (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     customer_id BIGINT,
@@ -33,3 +38,62 @@ CREATE TABLE IF NOT EXISTS books (
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
     FOREIGN KEY (category_id) REFERENCES book_categories(id)
     );
+
+CREATE INDEX IF NOT EXISTS idx_subscriptions_author_customer_id ON subscriptions(author, customer_id);
+CREATE INDEX IF NOT EXISTS idx_subscriptions_category_id_customer_id ON subscriptions(category_id, customer_id);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    html_content CLOB NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(255),
+    created_at TIMESTAMP NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    owner VARCHAR(255),
+    lease_until TIMESTAMP
+    );
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next_attempt ON email_outbox(status, next_attempt_at);
+
+CREATE TABLE IF NOT EXISTS digest_runs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    run_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    partitions INTEGER NOT NULL,
+    min_customer_id BIGINT NOT NULL,
+    max_customer_id BIGINT NOT NULL,
+    sent INTEGER NOT NULL DEFAULT 0,
+    deferred INTEGER NOT NULL DEFAULT 0,
+    failed INTEGER NOT NULL DEFAULT 0,
+    started_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_digest_runs_run_date UNIQUE (run_date)
+    );
+
+CREATE TABLE IF NOT EXISTS digest_partitions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    run_id BIGINT NOT NULL,
+    partition_no INTEGER NOT NULL,
+    range_end BIGINT NOT NULL,
+    last_customer_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    owner VARCHAR(255),
+    lease_until TIMESTAMP,
+    sent INTEGER NOT NULL DEFAULT 0,
+    deferred INTEGER NOT NULL DEFAULT 0,
+    failed INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_digest_partitions UNIQUE (run_id, partition_no),
+    FOREIGN KEY (run_id) REFERENCES digest_runs(id) ON DELETE CASCADE
+    );
+
+CREATE TABLE IF NOT EXISTS notification_ledger (
+    customer_id BIGINT PRIMARY KEY,
+    book_ids BLOB NOT NULL,
+    updated_at TIMESTAMP,
+    version INTEGER,
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE
+    );
@@ -0,0 +1,95 @@
+package com.example.test.batch;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cost of the first and the last chunk of a 2M-row scan, offset paging against keyset paging.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:keysetbenchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class KeysetChunksBenchmarkTest {
+
+    private static final int ROWS = 2_000_000;
+    private static final int CHUNK = 1_000;
+    private static final int REPEATS = 5;
+    private static final int SEED_BATCH = 50_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO book_categories (id, category_name) VALUES (1, 'Benchmark')");
+        for (int from = 1; from <= ROWS; from += SEED_BATCH) {
+            jdbcTemplate.update("INSERT INTO books (id, author, title, category_id, added_date, version) "
+                    + "SELECT NEXT VALUE FOR books_seq, 'Author ' || MOD(X, 5000), 'Title ' || X, 1, CURRENT_DATE, 0 FROM SYSTEM_RANGE(?, ?)",
+                    from, from + SEED_BATCH - 1);
+        }
+    }
+
+    @Test
+    void lastChunkCostsTheSameAsTheFirst() {
+        int lastPage = ROWS / CHUNK - 1;
+        LocalDate today = LocalDate.now();
+        long lastPageStartId = jdbcTemplate.queryForObject(
+                "SELECT id FROM books ORDER BY id OFFSET ? ROWS FETCH FIRST 1 ROW ONLY", Long.class, (long) lastPage * CHUNK - 1);
+
+        double offsetFirst = time(() -> offsetPage(today, 0));
+        double offsetLast = time(() -> offsetPage(today, lastPage));
+        double keysetFirst = time(() -> bookRepository.findAddedBetweenAfter(today, today, KeysetChunks.START, PageRequest.ofSize(CHUNK)).size());
+        double keysetLast = time(() -> bookRepository.findAddedBetweenAfter(today, today, lastPageStartId, PageRequest.ofSize(CHUNK)).size());
+
+        System.out.printf("rows=%d chunk=%d offset+count first=%.1f ms last=%.1f ms | keyset first=%.1f ms last=%.1f ms%n",
+                ROWS, CHUNK, offsetFirst, offsetLast, keysetFirst, keysetLast);
+    }
+
+    // what the old Page<Book> findBooksAddedToday(addedDate, PageRequest.of(page, size)) ran per page
+    private int offsetPage(LocalDate addedDate, int page) {
+        entityManager.createQuery("SELECT COUNT(b) FROM Book b WHERE b.addedDate = :addedDate", Long.class)
+                .setParameter("addedDate", addedDate)
+                .getSingleResult();
+        return entityManager.createQuery("SELECT b FROM Book b WHERE b.addedDate = :addedDate ORDER BY b.id", Book.class)
+                .setParameter("addedDate", addedDate)
+                .setFirstResult(page * CHUNK)
+                .setMaxResults(CHUNK)
+                .getResultList()
+                .size();
+    }
+
+    private static double time(IntSupplier query) {
+        assertEquals(CHUNK, query.getAsInt());
+        long start = System.nanoTime();
+        for (int i = 0; i < REPEATS; i++) {
+            assertEquals(CHUNK, query.getAsInt());
+        }
+        return (System.nanoTime() - start) / 1e6 / REPEATS;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.test.batch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetChunksTest {
+
+    private final List<Long> table = new CopyOnWriteArrayList<>();
+    private final List<Long> queriedAfter = new ArrayList<>();
+
+    @Test
+    void walksTableInIdOrderAndStopsOnShortChunk() {
+        insert(1, 7);
+
+        List<List<Long>> chunks = collect(new KeysetChunks<>(this::fetch, id -> id, 3));
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L), List.of(7L)), chunks);
+        assertEquals(List.of(KeysetChunks.START, 3L, 6L), queriedAfter);
+    }
+
+    @Test
+    void issuesOneExtraQueryWhenLastChunkIsFull() {
+        insert(1, 6);
+
+        List<List<Long>> chunks = collect(new KeysetChunks<>(this::fetch, id -> id, 3));
+
+        assertEquals(2, chunks.size());
+        assertEquals(3, queriedAfter.size());
+    }
+
+    @Test
+    void rowsInsertedBehindTheCursorDoNotShiftLaterChunks() {
+        insert(10, 15);
+        List<Long> seen = new ArrayList<>();
+
+        for (List<Long> chunk : new KeysetChunks<>(this::fetch, id -> id, 2)) {
+            seen.addAll(chunk);
+            if (seen.size() == 2) {
+                table.add(0, 1L);
+                table.add(16L);
+            }
+        }
+
+        assertEquals(List.of(10L, 11L, 12L, 13L, 14L, 15L, 16L), seen);
+    }
+
+    @Test
+    void rejectsEmptyChunks() {
+        assertThrows(IllegalArgumentException.class, () -> new KeysetChunks<>(this::fetch, id -> id, 0));
+    }
+
+    private List<Long> fetch(long afterId, Pageable limit) {
+        queriedAfter.add(afterId);
+        return table.stream()
+                .filter(id -> id > afterId)
+                .sorted()
+                .limit(limit.getPageSize())
+                .toList();
+    }
+
+    private void insert(long from, long to) {
+        for (long id = from; id <= to; id++) {
+            table.add(id);
+        }
+    }
+
+    private static List<List<Long>> collect(Iterable<List<Long>> chunks) {
+        List<List<Long>> result = new ArrayList<>();
+        chunks.forEach(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.test.book;
+
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.config.DatasetConfig;
+import com.example.test.dataset.DatasetGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Read throughput of the paged catalog ({@link BookService#getAllBooks}) with the second-level and query caches
+ * bypassed ({@link CacheMode#IGNORE}) and in use, cycling over the first pages the way clients browse.
+ * The catalog size can be overridden with {@code -Dbook.cache.benchmark.books=...}.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.book.search.build-on-startup=false"})
+@ActiveProfiles("test")
+class BookCatalogCacheBenchmarkTest {
+
+    private static final int BOOKS = Integer.getInteger("book.cache.benchmark.books", 100_000);
+    private static final int PAGES = 50;
+    private static final int PAGE_SIZE = 20;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 5_000_000_000L;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @AfterEach
+    void teardown() {
+        bookRepository.deleteAllInBatch();
+        bookCategoryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void pagedListingWithAndWithoutCaches() {
+        DatasetConfig spec = new DatasetConfig();
+        spec.setCategories(20);
+        spec.setAuthors(5_000);
+        spec.setBooks(BOOKS);
+        spec.setCustomers(0);
+        spec.setSubscriptions(0);
+        datasetGenerator.generate(spec);
+
+        double uncached = pagesPerSecond(CacheMode.IGNORE);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        double cached = pagesPerSecond(CacheMode.NORMAL);
+
+        System.out.printf("books=%d pages=%d size=%d | no cache: %.0f pages/s | L2 + query cache: %.0f pages/s "
+                        + "(x%.1f) | query cache hits=%d misses=%d, category hits=%d misses=%d%n",
+                BOOKS, PAGES, PAGE_SIZE, uncached, cached, cached / uncached,
+                statistics.getQueryRegionStatistics(Book.CATALOG_QUERY_REGION).getHitCount(),
+                statistics.getQueryRegionStatistics(Book.CATALOG_QUERY_REGION).getMissCount(),
+                statistics.getDomainDataRegionStatistics(BookCategory.CACHE_REGION).getHitCount(),
+                statistics.getDomainDataRegionStatistics(BookCategory.CACHE_REGION).getMissCount());
+
+        assertTrue(cached > uncached);
+    }
+
+    private double pagesPerSecond(CacheMode cacheMode) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        run(transaction, cacheMode, WARMUP_NANOS);
+        long start = System.nanoTime();
+        long pages = run(transaction, cacheMode, MEASURE_NANOS);
+        return pages / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private long run(TransactionTemplate transaction, CacheMode cacheMode, long nanos) {
+        long end = System.nanoTime() + nanos;
+        long pages = 0;
+        while (System.nanoTime() < end) {
+            Pageable page = PageRequest.of((int) (pages % PAGES), PAGE_SIZE, Sort.by("id"));
+            transaction.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setCacheMode(cacheMode);
+                bookService.getAllBooks(page);
+            });
+            pages++;
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.test.book;
+
+import com.example.test.book.bulk.BookImporter;
+import com.example.test.book.bulk.CsvBookRows;
+import com.example.test.book.model.Book;
+import com.example.test.book.model.BookDTO;
+import com.example.test.book.model.CreateBookCommand;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.config.BookPageCacheConfig;
+import jakarta.persistence.EntityManagerFactory;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.cache.CacheManager;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+public class BookCatalogCacheTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10, Sort.by("id"));
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookImporter bookImporter;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    @Autowired
+    private BookPageCacheConfig bookPageCacheConfig;
+
+    private BookCategory horror;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        horror = bookCategoryRepository.save(BookCategory.builder().categoryName("Horror").build());
+        bookService.addBook(new CreateBookCommand("Stephen King", "IT", horror.getId()));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void teardown() {
+        bookRepository.deleteAllInBatch();
+        bookCategoryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void catalogQueryResultsLiveNoLongerThanAListingPage() {
+        Eh107Configuration<?, ?> configuration = hibernateCacheManager.getCache(Book.CATALOG_QUERY_REGION)
+                .getConfiguration(Eh107Configuration.class);
+        CacheRuntimeConfiguration<?, ?> region = configuration.unwrap(CacheRuntimeConfiguration.class);
+
+        assertEquals(bookPageCacheConfig.getMaxAge(), region.getExpiryPolicy().getExpiryForCreation(null, null));
+    }
+
+    @Test
+    void repeatedPageIsServedFromTheCaches() {
+        bookService.getAllBooks(FIRST_PAGE);
+        long queries = statistics.getPrepareStatementCount();
+
+        Page<BookDTO> page = bookService.getAllBooks(FIRST_PAGE);
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(queries, statistics.getPrepareStatementCount());
+        // the query cache holds the rows of the page (a short page needs no count), the category has its own region
+        assertEquals(1, statistics.getQueryRegionStatistics(Book.CATALOG_QUERY_REGION).getHitCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics(BookCategory.CACHE_REGION).getHitCount());
+    }
+
+    @Test
+    void addBookInvalidatesCachedPages() {
+        bookService.getAllBooks(FIRST_PAGE);
+
+        bookService.addBook(new CreateBookCommand("Bram Stoker", "Dracula", horror.getId()));
+
+        Page<BookDTO> page = bookService.getAllBooks(FIRST_PAGE);
+        assertEquals(2, page.getTotalElements());
+        assertEquals("Dracula", page.getContent().get(1).getTitle());
+    }
+
+    @Test
+    void bulkImportInvalidatesCachedPages() throws IOException {
+        bookService.getAllBooks(FIRST_PAGE);
+
+        bookImporter.importBooks(new CsvBookRows(new StringReader(
+                "author,title,categoryId\nBram Stoker,Dracula," + horror.getId() + "\n")));
+
+        assertEquals(2, bookService.getAllBooks(FIRST_PAGE).getTotalElements());
+    }
+}
@@ -3,6 +3,7 @@ package com.example.test.book;
 
 import com.example.test.book.model.Book;
 import com.example.test.book.model.CreateBookCommand;
+import com.example.test.book.search.BookSearchService;
 import com.example.test.category.BookCategory;
 import com.example.test.category.BookCategoryRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,16 +13,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
 
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -43,6 +48,9 @@ public class BookControllerTest {
     @Autowired
     private BookCategoryRepository bookCategoryRepository;
 
+    @Autowired
+    private BookSearchService bookSearchService;
+
     private Book sampleBook;
     private BookCategory sampleBookCategory;
 
@@ -95,6 +103,22 @@ public class BookControllerTest {
         assertEquals("Andrzej Sapkowski", newBook.getAuthor());
     }
 
+    @Test
+    void testAddBookRejectsBlankAuthor() throws Exception {
+        CreateBookCommand command = CreateBookCommand.builder()
+                .author(" ")
+                .title("Wiedźmin")
+                .categoryId(sampleBookCategory.getId())
+                .build();
+
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(user("admin").roles("ADMIN"))
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Author must not be blank"));
+    }
+
     @Test
     void testGetAllBooks() throws Exception {
         mockMvc.perform(get("/api/books")
@@ -109,8 +133,106 @@ public class BookControllerTest {
         assertEquals(sampleBook.getId(), books.get(0).getId());
     }
 
-}
+    @Test
+    void testGetAllBooksAnswersNotModifiedForCurrentEtag() throws Exception {
+        String etag = mockMvc.perform(get("/api/books")
+                        .with(user("user").roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
 
+        mockMvc.perform(get("/api/books")
+                        .with(user("user").roles("USER"))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
 
+    @Test
+    void testAddBookChangesEtagAndListedPage() throws Exception {
+        String etag = mockMvc.perform(get("/api/books")
+                        .with(user("user").roles("USER")))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
 
+        CreateBookCommand command = CreateBookCommand.builder()
+                .author("Andrzej Sapkowski")
+                .title("Wiedźmin")
+                .categoryId(sampleBookCategory.getId())
+                .build();
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(user("admin").roles("ADMIN"))
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isCreated());
 
+        mockMvc.perform(get("/api/books")
+                        .with(user("user").roles("USER"))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    void testSearchBooks() throws Exception {
+        bookSearchService.rebuild();
+
+        CreateBookCommand command = CreateBookCommand.builder()
+                .author("Andrzej Sapkowski")
+                .title("Wiedźmin")
+                .categoryId(sampleBookCategory.getId())
+                .build();
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(user("admin").roles("ADMIN"))
+                        .content(objectMapper.writeValueAsString(command)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/books/search")
+                        .with(user("user").roles("USER"))
+                        .param("q", "wiedzmin sapk"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Wiedźmin"));
+
+        mockMvc.perform(get("/api/books/search")
+                        .with(user("user").roles("USER"))
+                        .param("q", "mickiewicz"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(sampleBook.getId()));
+    }
+
+    @Test
+    void testSearchBooksRejectsTooLargeLimit() throws Exception {
+        mockMvc.perform(get("/api/books/search")
+                        .with(user("user").roles("USER"))
+                        .param("q", "mickiewicz")
+                        .param("limit", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testImportBooksFromCsv() throws Exception {
+        bookSearchService.rebuild();
+        String csv = "author,title,categoryId\n" +
+                "Bram Stoker,Dracula," + sampleBookCategory.getId() + "\n" +
+                "adam,mickiewicz," + sampleBookCategory.getId() + "\n";
+
+        mockMvc.perform(post("/api/books/import")
+                        .contentType("text/csv")
+                        .with(user("admin").roles("ADMIN"))
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+
+        assertEquals(2, bookRepository.count());
+        mockMvc.perform(get("/api/books/search")
+                        .with(user("user").roles("USER"))
+                        .param("q", "dracula"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].author").value("Bram Stoker"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.test.book;
+
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.config.BookPageCacheConfig;
+import com.example.test.config.DatasetConfig;
+import com.example.test.dataset.DatasetGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Clients polling the first page of {@code GET /api/books} through the whole MVC and security stack: with the page
+ * cache off, with cached pages, and with conditional requests answered 304. Reports CPU time per request, summed
+ * over the polling threads. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.book.search.build-on-startup=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookPageCacheBenchmarkTest {
+
+    private static final int BOOKS = 100_000;
+    private static final int CLIENTS = 8;
+    private static final int WARMUP_POLLS = 2_000;
+    private static final int POLLS = 10_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookPageCacheConfig config;
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @AfterEach
+    void teardown() {
+        config.setEnabled(true);
+        bookRepository.deleteAllInBatch();
+        bookCategoryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void pollingFirstPage() throws Exception {
+        DatasetConfig spec = new DatasetConfig();
+        spec.setCategories(20);
+        spec.setAuthors(5_000);
+        spec.setBooks(BOOKS);
+        spec.setCustomers(0);
+        spec.setSubscriptions(0);
+        datasetGenerator.generate(spec);
+
+        config.setEnabled(false);
+        Result uncached = poll(null, 200);
+        config.setEnabled(true);
+        Result cached = poll(null, 200);
+        String etag = mockMvc.perform(firstPage()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Result notModified = poll(etag, 304);
+
+        System.out.printf("books=%d clients=%d polls=%d | no cache: %s | cached page: %s | 304: %s%n",
+                BOOKS, CLIENTS, POLLS, uncached, cached, notModified);
+
+        assertTrue(cached.cpuMicrosPerRequest() < uncached.cpuMicrosPerRequest());
+        assertTrue(notModified.cpuMicrosPerRequest() < uncached.cpuMicrosPerRequest());
+    }
+
+    private Result poll(String etag, int expectedStatus) throws Exception {
+        run(etag, expectedStatus, WARMUP_POLLS);
+        long start = System.nanoTime();
+        long cpuNanos = run(etag, expectedStatus, POLLS);
+        long elapsedNanos = System.nanoTime() - start;
+        return new Result(cpuNanos / 1_000.0 / POLLS, POLLS / (elapsedNanos / 1e9));
+    }
+
+    /**
+     * Returns the CPU time the clients spent on {@code polls} requests.
+     */
+    private long run(String etag, int expectedStatus, int polls) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Long>> cpuNanos = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                cpuNanos.add(clients.submit(() -> {
+                    long start = threads.getCurrentThreadCpuTime();
+                    for (int i = 0; i < polls / CLIENTS; i++) {
+                        MockHttpServletRequestBuilder request = firstPage();
+                        if (etag != null) {
+                            request.header(HttpHeaders.IF_NONE_MATCH, etag);
+                        }
+                        assertEquals(expectedStatus, mockMvc.perform(request).andReturn().getResponse().getStatus());
+                    }
+                    return threads.getCurrentThreadCpuTime() - start;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> client : cpuNanos) {
+                total += client.get();
+            }
+            return total;
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private static MockHttpServletRequestBuilder firstPage() {
+        return get("/api/books")
+                .with(user("user").roles("USER"))
+                .param("page", "0")
+                .param("size", "20");
+    }
+
+    private record Result(double cpuMicrosPerRequest, double requestsPerSecond) {
+        @Override
+        public String toString() {
+            return String.format("%.0f us CPU/request, %.0f requests/s", cpuMicrosPerRequest, requestsPerSecond);
+        }
+    }
+}
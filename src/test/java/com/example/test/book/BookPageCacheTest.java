@@ -0,0 +1,67 @@
+package com.example.test.book;
+
+import com.example.test.book.model.BookDTO;
+import com.example.test.config.BookPageCacheConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class BookPageCacheTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    void pageIsReloadedOnceOlderThanMaxAge() throws Exception {
+        BookPageCacheConfig config = new BookPageCacheConfig();
+        config.setMaxAge(Duration.ofMillis(100));
+        BookPageCache cache = cache(config);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Page<BookDTO>> loader = () -> {
+            loads.incrementAndGet();
+            return page("IT");
+        };
+
+        cache.get(FIRST_PAGE, loader);
+        cache.get(FIRST_PAGE, loader);
+        assertEquals(1, loads.get());
+
+        Thread.sleep(150);
+        cache.get(FIRST_PAGE, loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void etagIsTheSameOnEveryNodeForTheSamePage() {
+        BookPageCache node1 = cache(new BookPageCacheConfig());
+        BookPageCache node2 = cache(new BookPageCacheConfig());
+
+        String etag = node1.get(FIRST_PAGE, () -> page("IT")).etag();
+
+        assertEquals(etag, node2.get(FIRST_PAGE, () -> page("IT")).etag());
+        node2.invalidate();
+        assertNotEquals(etag, node2.get(FIRST_PAGE, () -> page("Carrie")).etag());
+    }
+
+    private BookPageCache cache(BookPageCacheConfig config) {
+        return new BookPageCache(objectMapper, config, new SimpleMeterRegistry());
+    }
+
+    private static Page<BookDTO> page(String title) {
+        BookDTO book = BookDTO.builder().id(1L).author("Stephen King").title(title).build();
+        return new PageImpl<>(List.of(book), FIRST_PAGE, 1);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.test.book;
 
 import com.example.test.book.model.Book;
+import com.example.test.book.model.BookAddedEvent;
 import com.example.test.book.model.BookDTO;
 import com.example.test.book.model.BookMapper;
 import com.example.test.book.model.CreateBookCommand;
@@ -11,6 +12,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -30,6 +32,9 @@ class BookServiceTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookService bookService;
 
@@ -83,6 +88,7 @@ class BookServiceTest {
 
         assertNotNull(savedBook.getCategory());
         assertEquals("Fiction", savedBook.getCategory().getCategoryName());
+        verify(eventPublisher).publishEvent(any(BookAddedEvent.class));
     }
 
 
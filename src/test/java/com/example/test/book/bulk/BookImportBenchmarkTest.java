@@ -0,0 +1,110 @@
+package com.example.test.book.bulk;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.BookService;
+import com.example.test.book.model.BookImportReport;
+import com.example.test.book.model.CreateBookCommand;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulk import against one {@code addBook} per book. The CSV is generated while it is read, so the import is measured
+ * with a constant-memory source like a streamed request body. The sizes can be overridden with
+ * {@code -Dbook.import.benchmark.books=...} and {@code -Dbook.import.benchmark.single-books=...}.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.book.search.build-on-startup=false"})
+@ActiveProfiles("test")
+class BookImportBenchmarkTest {
+
+    private static final int BOOKS = Integer.getInteger("book.import.benchmark.books", 1_000_000);
+    private static final int SINGLE_BOOKS = Integer.getInteger("book.import.benchmark.single-books", 10_000);
+    private static final int AUTHORS = 50_000;
+
+    @Autowired
+    private BookImporter bookImporter;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @AfterEach
+    void teardown() {
+        bookRepository.deleteAllInBatch();
+        bookCategoryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void bulkImportAgainstAddBook() throws IOException {
+        long categoryId = bookCategoryRepository.save(BookCategory.builder().categoryName("Benchmark").build()).getId();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SINGLE_BOOKS; i++) {
+            bookService.addBook(new CreateBookCommand("Author " + i % AUTHORS, "Single " + i, categoryId));
+        }
+        double singleSeconds = (System.nanoTime() - start) / 1e9;
+
+        start = System.nanoTime();
+        BookImportReport report = bookImporter.importBooks(new CsvBookRows(new GeneratedCsv(BOOKS, categoryId)));
+        double importSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("addBook: books=%d %.1f s (%.0f books/s) | import: books=%d %.1f s (%.0f books/s)%n",
+                SINGLE_BOOKS, singleSeconds, SINGLE_BOOKS / singleSeconds,
+                report.getImported(), importSeconds, report.getImported() / importSeconds);
+
+        assertEquals(BOOKS, report.getImported());
+        assertEquals(SINGLE_BOOKS + BOOKS, bookRepository.count());
+    }
+
+    /**
+     * Renders {@code author,title,categoryId} rows on demand.
+     */
+    private static class GeneratedCsv extends Reader {
+        private final int rows;
+        private final long categoryId;
+        private int row = -1;
+        private String current = "author,title,categoryId\n";
+        private int position;
+
+        GeneratedCsv(int rows, long categoryId) {
+            this.rows = rows;
+            this.categoryId = categoryId;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == current.length()) {
+                if (++row == rows) {
+                    return -1;
+                }
+                current = "Author " + row % AUTHORS + ",\"Bulk title, part " + row + "\"," + categoryId + "\n";
+                position = 0;
+            }
+            int count = Math.min(length, current.length() - position);
+            current.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.test.book.bulk;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.BookService;
+import com.example.test.book.model.Book;
+import com.example.test.book.model.BookImportReport;
+import com.example.test.book.model.CreateBookCommand;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"app.book.import.batch-size=2", "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+public class BookImporterTest {
+
+    @Autowired
+    private BookImporter bookImporter;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private BookCategory horror;
+
+    @BeforeEach
+    void setUp() {
+        horror = bookCategoryRepository.save(BookCategory.builder().categoryName("Horror").build());
+    }
+
+    @AfterEach
+    void teardown() {
+        bookRepository.deleteAllInBatch();
+        bookCategoryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void importsValidRowsAndReportsTheOthersByLine() throws IOException {
+        bookService.addBook(new CreateBookCommand("Stephen King", "IT", horror.getId()));
+
+        BookImportReport report = bookImporter.importBooks(new CsvBookRows(new StringReader(
+                "title,author,categoryId\n" +
+                "Dracula,Bram Stoker," + horror.getId() + "\n" +
+                "IT,Stephen King," + horror.getId() + "\n" +
+                "\"Carrie, the novel\",Stephen King," + horror.getId() + "\n" +
+                "Dracula,Bram Stoker," + horror.getId() + "\n" +
+                ",Nobody," + horror.getId() + "\n" +
+                "Lost,Someone,999999\n" +
+                "Broken,Someone,abc\n")));
+
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getDuplicates());
+        assertEquals(3, report.getRejected());
+        Map<Long, String> errors = report.getErrors().stream()
+                .collect(Collectors.toMap(BookImportReport.RowError::line, BookImportReport.RowError::reason));
+        assertEquals(Set.of(3L, 5L, 6L, 7L, 8L), errors.keySet());
+        assertTrue(errors.get(3L).contains("already exists"));
+        assertTrue(errors.get(5L).contains("already exists"));
+        assertEquals("Title must not be blank", errors.get(6L));
+        assertEquals("Category with ID 999999 does not exist.", errors.get(7L));
+        assertTrue(errors.get(8L).startsWith("Category ID must be a number"));
+
+        List<Book> books = bookRepository.findAll();
+        assertEquals(3, books.size());
+        assertTrue(books.stream().anyMatch(book -> book.getTitle().equals("Carrie, the novel")));
+        assertTrue(books.stream().allMatch(book -> book.getAddedDate() != null));
+    }
+
+    @Test
+    void importsNdjson() throws IOException {
+        BookImportReport report = bookImporter.importBooks(new NdjsonBookRows(new StringReader(
+                "{\"author\":\"Bram Stoker\",\"title\":\"Dracula\",\"categoryId\":" + horror.getId() + "}\n" +
+                "\n" +
+                "{\"author\":\"Mary Shelley\",\"title\":\"Frankenstein\",\"categoryId\":" + horror.getId() + "}\n" +
+                "{not json}\n"), objectMapper));
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(4L, report.getErrors().get(0).line());
+        assertEquals(2, bookRepository.count());
+    }
+
+    @Test
+    void importedIdsDoNotCollideWithBooksAddedThroughJpa() throws IOException {
+        bookService.addBook(new CreateBookCommand("Stephen King", "IT", horror.getId()));
+        bookImporter.importBooks(new CsvBookRows(new StringReader(
+                "author,title,categoryId\n" +
+                "Bram Stoker,Dracula," + horror.getId() + "\n" +
+                "Mary Shelley,Frankenstein," + horror.getId() + "\n")));
+        bookService.addBook(new CreateBookCommand("Stephen King", "Carrie", horror.getId()));
+
+        List<Book> books = bookRepository.findAll();
+        assertEquals(4, books.size());
+        assertEquals(4, new HashSet<>(books.stream().map(Book::getId).toList()).size());
+    }
+
+    @Test
+    void limitsListedErrorsButCountsAll() throws IOException {
+        StringBuilder csv = new StringBuilder("author,title,categoryId\n");
+        for (int i = 0; i < 1_005; i++) {
+            csv.append("Someone,Title ").append(i).append(",999999\n");
+        }
+
+        BookImportReport report = bookImporter.importBooks(new CsvBookRows(new StringReader(csv.toString())));
+
+        assertEquals(1_005, report.getRejected());
+        assertEquals(1_000, report.getErrors().size());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.test.book.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvBookRowsTest {
+
+    @Test
+    void readsQuotedFieldsAndTracksLineNumbers() throws IOException {
+        CsvBookRows rows = new CsvBookRows(new StringReader(
+                "﻿Author,Title,category_id\r\n" +
+                "\"King, Stephen\",\"The \"\"Shining\"\"\",1\r\n" +
+                "\r\n" +
+                "Someone,\"Two\nLines\",2\n" +
+                "Last,Row,3"));
+
+        BookRow first = rows.next();
+        assertEquals(2, first.line());
+        assertEquals("King, Stephen", first.command().getAuthor());
+        assertEquals("The \"Shining\"", first.command().getTitle());
+        assertEquals(1L, first.command().getCategoryId());
+
+        BookRow second = rows.next();
+        assertEquals(4, second.line());
+        assertEquals("Two\nLines", second.command().getTitle());
+
+        BookRow third = rows.next();
+        assertEquals(6, third.line());
+        assertEquals(3L, third.command().getCategoryId());
+        assertNull(rows.next());
+    }
+
+    @Test
+    void rejectsRowsWithTheWrongNumberOfFields() throws IOException {
+        CsvBookRows rows = new CsvBookRows(new StringReader("author,title,categoryId\nOnly,Two\n"));
+
+        BookRow row = rows.next();
+        assertNull(row.command());
+        assertEquals("Expected 3 fields but found 2.", row.error());
+    }
+
+    @Test
+    void requiresAHeaderWithTheBookColumns() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvBookRows(new StringReader("")));
+        assertThrows(IllegalArgumentException.class, () -> new CsvBookRows(new StringReader("author,name\n")));
+    }
+}
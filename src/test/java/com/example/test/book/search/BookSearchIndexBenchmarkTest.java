@@ -0,0 +1,106 @@
+package com.example.test.book.search;
+
+import com.example.test.book.model.BookSearchEntry;
+import com.example.test.dataset.ZipfDistribution;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Index build time, retained heap and query latency over a synthetic catalog whose title words and authors follow
+ * a Zipf distribution. The size can be overridden with {@code -Dbook.search.benchmark.books=...}.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class BookSearchIndexBenchmarkTest {
+
+    private static final int BOOKS = Integer.getInteger("book.search.benchmark.books", 1_000_000);
+    private static final int VOCABULARY = 50_000;
+    private static final int AUTHORS = 100_000;
+    private static final int QUERIES = 10_000;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "ten", "dor", "vel", "an", "is", "or", "un",
+            "bre", "sto", "ly", "qua", "zen"};
+
+    @Test
+    void buildTimeMemoryAndQueryLatency() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] words = names(VOCABULARY, random);
+        String[] authors = names(AUTHORS, random);
+        ZipfDistribution wordRanks = new ZipfDistribution(VOCABULARY, 1.0);
+        ZipfDistribution authorRanks = new ZipfDistribution(AUTHORS, 1.1);
+
+        long heapBefore = usedHeap();
+        List<BookSearchEntry> entries = new ArrayList<>(BOOKS);
+        for (long id = 1; id <= BOOKS; id++) {
+            StringBuilder title = new StringBuilder();
+            for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                title.append(words[wordRanks.sample(random)]).append(' ');
+            }
+            entries.add(new BookSearchEntry(id, title.toString().trim(), authors[authorRanks.sample(random)],
+                    1L + random.nextInt(50), LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365))));
+        }
+
+        long start = System.nanoTime();
+        BookSearchIndex index = new BookSearchIndex();
+        entries.forEach(index::add);
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        // the index keeps the titles, so the entries themselves go before measuring
+        entries = null;
+        long indexBytes = usedHeap() - heapBefore;
+
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String word = words[wordRanks.sample(random)];
+            queries[i] = switch (i % 3) {
+                case 0 -> word;
+                case 1 -> word.substring(0, Math.min(word.length(), 3));
+                default -> word + " " + authors[authorRanks.sample(random)].split(" ")[0];
+            };
+        }
+        long[] latencies = new long[QUERIES];
+        long hits = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            long queryStart = System.nanoTime();
+            hits += index.search(queries[i], 20).size();
+            latencies[i] = System.nanoTime() - queryStart;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("books=%d terms=%d build=%d ms index-heap=%d MB (%d bytes/book) " +
+                        "queries=%d hits=%d p50=%d us p99=%d us max=%d us%n",
+                index.size(), index.terms(), buildMillis, indexBytes >> 20, indexBytes / BOOKS,
+                QUERIES, hits, latencies[QUERIES / 2] / 1_000, latencies[QUERIES * 99 / 100] / 1_000,
+                latencies[QUERIES - 1] / 1_000);
+
+        assertEquals(BOOKS, index.size());
+        assertFalse(index.search(words[0], 1).isEmpty());
+    }
+
+    private static String[] names(int count, SplittableRandom random) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int s = 2 + random.nextInt(3); s > 0; s--) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            names[i] = name.append(i).toString();
+        }
+        return names;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
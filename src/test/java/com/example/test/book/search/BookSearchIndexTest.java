@@ -0,0 +1,103 @@
+package com.example.test.book.search;
+
+import com.example.test.book.model.BookDTO;
+import com.example.test.book.model.BookSearchEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    @Test
+    void tokenizeLowercasesAndStripsDiacritics() {
+        assertEquals(List.of("wiedzmin", "zolta", "lodz", "2"), BookSearchIndex.tokenize("Wiedźmin: Żółta Łódź, 2"));
+        assertEquals(List.of("j", "r", "r", "tolkien"), BookSearchIndex.tokenize("J.R.R. Tolkien"));
+        assertTrue(BookSearchIndex.tokenize("  ").isEmpty());
+    }
+
+    @Test
+    void searchMatchesWordsAndPrefixesInTitleOrAuthor() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.add(entry(1L, "The Hobbit", "J.R.R. Tolkien"));
+        index.add(entry(2L, "The Shining", "Stephen King"));
+
+        assertEquals(List.of(1L), ids(index.search("hobbit", 10)));
+        assertEquals(List.of(1L), ids(index.search("tolk", 10)));
+        assertEquals(List.of(2L), ids(index.search("KING shin", 10)));
+        assertTrue(index.search("hobbit king", 10).isEmpty());
+        assertTrue(index.search("dune", 10).isEmpty());
+    }
+
+    @Test
+    void searchRanksTitleAboveAuthorAndExactAbovePrefix() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.add(entry(1L, "Notes", "Carrie King"));
+        index.add(entry(2L, "King", "Someone"));
+        index.add(entry(3L, "Kingdom", "Someone Else"));
+
+        assertEquals(List.of(2L, 1L, 3L), ids(index.search("king", 10)));
+        assertEquals(List.of(2L), ids(index.search("king", 1)));
+    }
+
+    @Test
+    void searchKeepsTheBestMatchesAcrossThousandsOfBooks() {
+        BookSearchIndex index = new BookSearchIndex();
+        for (long id = 1; id <= 10_000; id++) {
+            index.add(entry(id, (id % 3 == 0 ? "Saga " : "Sagas ") + id, id % 1000 == 0 ? "J.R.R. Tolkien" : "Someone"));
+        }
+
+        // "saga" is the rarer of the two terms "sag" expands to, so it weighs more
+        assertEquals(List.of(9999L, 9996L, 9993L), ids(index.search("sag", 3)));
+        assertEquals(List.of(9000L, 6000L, 3000L, 10_000L, 8000L), ids(index.search("sag tolkien", 5)));
+    }
+
+    @Test
+    void searchBreaksTiesByMostRecentlyAdded() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.add(entry(1L, "Dune", "Frank Herbert"));
+        index.add(entry(2L, "Dune", "Frank Herbert Jr"));
+
+        assertEquals(List.of(2L, 1L), ids(index.search("dune", 10)));
+    }
+
+    @Test
+    void addIgnoresBooksAlreadyIndexed() {
+        BookSearchIndex index = new BookSearchIndex();
+        assertTrue(index.add(entry(5L, "Dune", "Frank Herbert")));
+        assertTrue(index.add(entry(3L, "Emma", "Jane Austen")));
+
+        assertFalse(index.add(entry(5L, "Dune", "Frank Herbert")));
+        assertFalse(index.add(entry(3L, "Emma", "Jane Austen")));
+        assertEquals(2, index.size());
+        assertTrue(index.contains(3L));
+        assertFalse(index.contains(4L));
+    }
+
+    @Test
+    void searchReturnsStoredFields() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.add(new BookSearchEntry(7L, "Emma", "Jane Austen", 3L, LocalDate.of(2024, 1, 2)));
+        index.add(new BookSearchEntry(8L, "Persuasion", "Jane Austen", null, null));
+
+        BookDTO emma = index.search("emma", 10).get(0);
+        assertEquals(7L, emma.getId());
+        assertEquals("Jane Austen", emma.getAuthor());
+        assertEquals(3L, emma.getCategoryId());
+        assertEquals(LocalDate.of(2024, 1, 2), emma.getAddedDate());
+
+        BookDTO persuasion = index.search("persuasion", 10).get(0);
+        assertNull(persuasion.getCategoryId());
+        assertNull(persuasion.getAddedDate());
+    }
+
+    private static BookSearchEntry entry(Long id, String title, String author) {
+        return new BookSearchEntry(id, title, author, 1L, LocalDate.of(2024, 1, 1));
+    }
+
+    private static List<Long> ids(List<BookDTO> books) {
+        return books.stream().map(BookDTO::getId).toList();
+    }
+}
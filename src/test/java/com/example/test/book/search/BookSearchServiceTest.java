@@ -0,0 +1,63 @@
+package com.example.test.book.search;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import com.example.test.book.model.BookDTO;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class BookSearchServiceTest {
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    private BookCategory horror;
+
+    @BeforeEach
+    void setUp() {
+        horror = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Horror").build());
+        bookSearchService.rebuild();
+    }
+
+    @AfterEach
+    void teardown() {
+        bookRepository.deleteAll();
+        bookCategoryRepository.deleteAll();
+    }
+
+    @Test
+    void catchUpIndexesBooksCommittedWithoutAnEventOnThisNode() {
+        // saved straight through the repository, like a book added on another node
+        Book dracula = bookRepository.save(Book.builder().author("Bram Stoker").title("Dracula").category(horror)
+                .addedDate(LocalDate.now()).build());
+        bookRepository.save(Book.builder().author("Mary Shelley").title("Frankenstein").category(horror)
+                .addedDate(LocalDate.now().minusDays(7)).build());
+        assertTrue(bookSearchService.search("dracula", 10).isEmpty());
+
+        assertEquals(1, bookSearchService.catchUp());
+
+        List<BookDTO> found = bookSearchService.search("dracula", 10);
+        assertEquals(List.of(dracula.getId()), found.stream().map(BookDTO::getId).toList());
+        assertEquals(0, bookSearchService.catchUp());
+    }
+}
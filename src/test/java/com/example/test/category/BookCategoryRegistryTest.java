@@ -0,0 +1,120 @@
+package com.example.test.category;
+
+import com.example.test.config.BookCategoryConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+public class BookCategoryRegistryTest {
+
+    @Autowired
+    private BookCategoryRegistry bookCategoryRegistry;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BookCategoryConfig config;
+
+    @AfterEach
+    void teardown() {
+        config.setMissReloadInterval(Duration.ofSeconds(1));
+        bookCategoryRepository.deleteAllInBatch();
+        bookCategoryRegistry.refresh();
+    }
+
+    @Test
+    void resolvesKnownIdsFromMemoryWithSharedInstances() {
+        BookCategory horror = bookCategoryRepository.save(BookCategory.builder().categoryName("Horror").build());
+        BookCategory first = bookCategoryRegistry.get(horror.getId());
+        double reloads = reloads();
+        double hits = lookups("hit");
+
+        BookCategory second = bookCategoryRegistry.get(horror.getId());
+
+        assertSame(first, second);
+        assertEquals("Horror", second.getCategoryName());
+        assertEquals(reloads, reloads());
+        assertEquals(hits + 1, lookups("hit"));
+    }
+
+    @Test
+    void reloadsAfterCategoryChangesCommit() {
+        BookCategory category = bookCategoryRepository.save(BookCategory.builder().categoryName("Horor").build());
+        assertEquals("Horor", bookCategoryRegistry.get(category.getId()).getCategoryName());
+
+        category.setCategoryName("Horror");
+        bookCategoryRepository.save(category);
+
+        assertEquals("Horror", bookCategoryRegistry.get(category.getId()).getCategoryName());
+
+        bookCategoryRepository.delete(category);
+
+        assertFalse(bookCategoryRegistry.contains(category.getId()));
+    }
+
+    @Test
+    void unknownIdReloadsOnceAndPicksUpRowsWrittenOutsideJpa() {
+        config.setMissReloadInterval(Duration.ZERO);
+        bookCategoryRegistry.refresh();
+        jdbcTemplate.update("INSERT INTO book_categories (category_name) VALUES ('Poetry')");
+        Long poetryId = jdbcTemplate.queryForObject(
+                "SELECT id FROM book_categories WHERE category_name = 'Poetry'", Long.class);
+        double misses = lookups("miss");
+        double reloads = reloads();
+
+        assertEquals("Poetry", bookCategoryRegistry.get(poetryId).getCategoryName());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> bookCategoryRegistry.get(-1L));
+
+        assertEquals("Invalid category ID", e.getMessage());
+        assertEquals(misses + 2, lookups("miss"));
+        assertEquals(reloads + 2, reloads());
+        assertFalse(bookCategoryRegistry.contains(null));
+    }
+
+    @Test
+    void unknownIdsReloadAtMostOncePerInterval() {
+        config.setMissReloadInterval(Duration.ofHours(1));
+        bookCategoryRegistry.refresh();
+        jdbcTemplate.update("INSERT INTO book_categories (category_name) VALUES ('Poetry')");
+        Long poetryId = jdbcTemplate.queryForObject(
+                "SELECT id FROM book_categories WHERE category_name = 'Poetry'", Long.class);
+        double reloads = reloads();
+
+        for (long id = -1; id > -1000; id--) {
+            assertFalse(bookCategoryRegistry.contains(id));
+        }
+        assertFalse(bookCategoryRegistry.contains(poetryId));
+        assertEquals(reloads, reloads());
+
+        bookCategoryRegistry.invalidate();
+
+        assertEquals("Poetry", bookCategoryRegistry.get(poetryId).getCategoryName());
+        assertEquals(reloads + 1, reloads());
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("book.categories.lookups").tag("result", result).counter().count();
+    }
+
+    private double reloads() {
+        return meterRegistry.get("book.categories.reloads").counter().count();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.test.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigValidationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ValidationAutoConfiguration.class))
+            .withUserConfiguration(Properties.class);
+
+    @Test
+    void defaultsAreValid() {
+        contextRunner.run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @Test
+    void outOfRangeSettingsFailStartupWithThePropertyName() {
+        contextRunner.withPropertyValues("app.mail.dispatch.concurrency=0")
+                .run(context -> assertThat(context).getFailure()
+                        .hasStackTraceContaining("The property 'app.mail.dispatch.concurrency' must be at least 1."));
+        contextRunner.withPropertyValues("app.digest.max-books-per-digest=0")
+                .run(context -> assertThat(context).getFailure()
+                        .hasStackTraceContaining("The property 'app.digest.max-books-per-digest' must be at least 1."));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties({MailDispatchConfig.class, DigestJobConfig.class})
+    static class Properties {
+    }
+}
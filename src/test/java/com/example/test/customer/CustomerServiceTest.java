@@ -101,7 +101,7 @@ public class CustomerServiceTest {
         assertEquals("john.doe@example.com", capturedCustomer.getEmail());
         assertFalse(capturedCustomer.isEmailConfirmed());
         assertEquals("unique-token", capturedCustomer.getConfirmationToken());
-        verify(emailService).sendConfirmationEmail(eq("john.doe@example.com"), eq("Email Confirmation"), eq("unique-token"));
+        verify(emailService).queueConfirmationEmail(eq("john.doe@example.com"), eq("Email Confirmation"), eq("unique-token"));
     }
 
 
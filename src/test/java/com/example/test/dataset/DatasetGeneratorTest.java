@@ -0,0 +1,117 @@
+package com.example.test.dataset;
+
+import com.example.test.book.BookRepository;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.config.DatasetConfig;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.subscription.SubscriptionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+public class DatasetGeneratorTest {
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @AfterEach
+    void teardown() {
+        subscriptionRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+        bookCategoryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void loadsTheRequestedVolumes() {
+        GeneratedDataset dataset = datasetGenerator.generate(spec());
+
+        assertEquals(10, dataset.categories());
+        assertEquals(10, bookCategoryRepository.count());
+        assertEquals(2_000, bookRepository.count());
+        assertEquals(300, customerRepository.count());
+        assertEquals(1_000, subscriptionRepository.count());
+        assertEquals(0, count("SELECT COUNT(*) FROM (SELECT customer_id, author, category_id FROM subscriptions " +
+                "GROUP BY customer_id, author, category_id HAVING COUNT(*) > 1)"));
+        assertEquals(3, count("SELECT MIN(c) FROM (SELECT COUNT(*) c FROM subscriptions GROUP BY customer_id)"));
+        assertEquals(4, count("SELECT MAX(c) FROM (SELECT COUNT(*) c FROM subscriptions GROUP BY customer_id)"));
+    }
+
+    @Test
+    void popularAuthorsDominate() {
+        datasetGenerator.generate(spec());
+
+        List<Long> booksPerAuthor = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM books GROUP BY author ORDER BY COUNT(*) DESC", Long.class);
+        assertTrue(booksPerAuthor.get(0) > 10 * booksPerAuthor.get(booksPerAuthor.size() / 2),
+                "Expected a Zipfian skew, got " + booksPerAuthor);
+        assertEquals("Author 1", jdbcTemplate.queryForObject(
+                "SELECT author FROM subscriptions GROUP BY author ORDER BY COUNT(*) DESC FETCH FIRST 1 ROW ONLY",
+                String.class));
+    }
+
+    @Test
+    void loadsOnTopOfExistingData() {
+        datasetGenerator.generate(spec());
+        datasetGenerator.generate(spec());
+
+        assertEquals(600, customerRepository.count());
+        assertEquals(4_000, bookRepository.count());
+    }
+
+    @Test
+    void zipfDistributionFollowsItsProbabilities() {
+        ZipfDistribution zipf = new ZipfDistribution(100, 1.0);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] hits = new int[zipf.size()];
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            hits[zipf.sample(random)]++;
+        }
+
+        for (int rank : new int[]{0, 1, 9}) {
+            assertEquals(zipf.probability(rank), (double) hits[rank] / samples, 0.01);
+        }
+        assertEquals(2.0, zipf.probability(0) / zipf.probability(1), 1e-9);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private static DatasetConfig spec() {
+        DatasetConfig spec = new DatasetConfig();
+        spec.setCategories(10);
+        spec.setAuthors(500);
+        spec.setBooks(2_000);
+        spec.setCustomers(300);
+        spec.setSubscriptions(1_000);
+        spec.setBatchSize(128);
+        return spec;
+    }
+}
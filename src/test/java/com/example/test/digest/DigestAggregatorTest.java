@@ -0,0 +1,107 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.digest.model.CustomerDigest;
+import com.example.test.digest.model.DigestRecipient;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DigestAggregatorTest {
+
+    private final BookCategory horror = new BookCategory(1L, "Horror");
+
+    @Test
+    void mergesSubscriptionsOfOneCustomerIntoOneDeduplicatedDigest() {
+        DigestRecipient byAuthor = recipient(1L, "john.doe@example.com", "Stephen King");
+        DigestRecipient byCategory = recipient(1L, "john.doe@example.com", "Someone Else");
+
+        Book it = DigestFixtures.book(10L, "Stephen King", "IT", horror);
+        Book carrie = DigestFixtures.book(11L, "Stephen King", "Carrie", horror);
+        Book dracula = DigestFixtures.book(12L, "Bram Stoker", "Dracula", horror);
+
+        DigestAggregator aggregator = new DigestAggregator(10);
+        aggregator.add(byAuthor, List.of(it, carrie));
+        aggregator.add(byCategory, List.of(it, carrie, dracula));
+        aggregator.add(byAuthor, List.of(carrie));
+
+        assertEquals(1, aggregator.size());
+        CustomerDigest digest = aggregator.getDigests().iterator().next();
+        assertEquals("john.doe@example.com", digest.getEmail());
+        assertEquals(List.of(carrie, it, dracula), digest.getBooks());
+        assertEquals(0, digest.getMoreBooks());
+    }
+
+    @Test
+    void keepsTopBooksByAuthorMatchThenRecencyAndCountsTheRest() {
+        LocalDate today = LocalDate.now();
+        Book it = book(10L, "Stephen King", today.minusDays(1));
+        Book dracula = book(11L, "Bram Stoker", today.minusDays(1));
+        Book carmilla = book(12L, "Sheridan Le Fanu", today);
+        Book frankenstein = book(13L, "Mary Shelley", today.minusDays(2));
+
+        DigestAggregator aggregator = new DigestAggregator(2);
+        aggregator.add(recipient(1L, "john.doe@example.com", "Someone Else"),
+                List.of(dracula, carmilla, frankenstein, it));
+        aggregator.add(recipient(1L, "john.doe@example.com", "Stephen King"), List.of(it));
+
+        CustomerDigest digest = aggregator.getDigests().iterator().next();
+        assertEquals(List.of(it, carmilla), digest.getBooks());
+        assertEquals(2, digest.getMoreBooks());
+        assertEquals(2, digest.size());
+    }
+
+    @Test
+    void digestsWithDifferentOverflowHaveDifferentContent() {
+        Book it = book(10L, "Stephen King", LocalDate.now());
+        Book dracula = book(11L, "Bram Stoker", LocalDate.now().minusDays(1));
+
+        DigestAggregator aggregator = new DigestAggregator(1);
+        aggregator.add(recipient(1L, "john.doe@example.com", "Stephen King"), List.of(it));
+        aggregator.add(recipient(2L, "jane.doe@example.com", "Stephen King"), List.of(it, dracula));
+
+        List<CustomerDigest> digests = aggregator.getDigestsGroupedByContent();
+        assertEquals(digests.get(0).getBookIds(), digests.get(1).getBookIds());
+        assertNotEquals(digests.get(0).getContentKey(), digests.get(1).getContentKey());
+    }
+
+    @Test
+    void keepsSeparateDigestsPerCustomer() {
+        Book it = DigestFixtures.book(10L, "Stephen King", "IT", horror);
+
+        DigestAggregator aggregator = new DigestAggregator(10);
+        aggregator.add(recipient(1L, "john.doe@example.com", "Stephen King"), List.of(it));
+        aggregator.add(recipient(2L, "jane.doe@example.com", "Stephen King"), List.of(it));
+
+        assertEquals(2, aggregator.size());
+    }
+
+    @Test
+    void groupsCustomersWithIdenticalDigestsTogether() {
+        Book it = DigestFixtures.book(10L, "Stephen King", "IT", horror);
+        Book dracula = DigestFixtures.book(12L, "Bram Stoker", "Dracula", horror);
+
+        DigestAggregator aggregator = new DigestAggregator(10);
+        aggregator.add(recipient(1L, "john.doe@example.com", "Stephen King"), List.of(it));
+        aggregator.add(recipient(2L, "jane.doe@example.com", "Bram Stoker"), List.of(dracula));
+        aggregator.add(recipient(3L, "anna@example.com", "Stephen King"), List.of(it));
+
+        assertEquals(List.of("john.doe@example.com", "anna@example.com", "jane.doe@example.com"),
+                aggregator.getDigestsGroupedByContent().stream().map(CustomerDigest::getEmail).toList());
+    }
+
+    private Book book(Long id, String author, LocalDate addedDate) {
+        Book book = DigestFixtures.book(id, author, "Title " + id, horror);
+        book.setAddedDate(addedDate);
+        return book;
+    }
+
+    private DigestRecipient recipient(Long customerId, String email, String author) {
+        return DigestFixtures.recipient(customerId, email, author, horror);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.test.digest;
+
+import com.example.test.LibraryApplication;
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.customer.model.Customer;
+import com.example.test.digest.DigestJobTest.CrashingMailTransport;
+import com.example.test.digest.DigestJobTest.SimulatedCrash;
+import com.example.test.digest.model.DigestPartition;
+import com.example.test.digest.model.DigestRun;
+import com.example.test.digest.model.DigestRunStatus;
+import com.example.test.email.FakeMailSender;
+import com.example.test.email.MailDispatcher;
+import com.example.test.subscription.SubscriptionRepository;
+import com.example.test.subscription.model.Subscription;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the digest on several application contexts sharing one H2 database, the way several deployed instances
+ * share the production database, and checks that they split the work instead of repeating it.
+ */
+class DigestClusterTest {
+
+    private static final String DATABASE_URL = "jdbc:h2:mem:digestcluster;DB_CLOSE_DELAY=-1";
+    private static final int NODES = 3;
+    private static final int CUSTOMERS = 30;
+    private static final int PARTITIONS = 6;
+
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    private final LocalDate today = LocalDate.now();
+    private final List<Customer> customers = new ArrayList<>();
+
+    @TestConfiguration
+    static class NodeConfig {
+        @Bean
+        @Primary
+        FakeMailSender fakeMailSender() {
+            return new FakeMailSender();
+        }
+
+        @Bean
+        @Primary
+        CrashingMailTransport crashingMailTransport(MailDispatcher mailDispatcher) {
+            return new CrashingMailTransport(mailDispatcher);
+        }
+    }
+
+    static class TestConfigurationExcludeFilter extends TypeExcludeFilter {
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            return metadataReader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj != null && getClass() == obj.getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+
+    @BeforeAll
+    static void startNodes() {
+        for (int i = 0; i < NODES; i++) {
+            // the first node owns the schema, the others attach to it
+            nodes.add(startNode("node-" + i, i == 0 ? "create-drop" : "none"));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            nodes.get(i).close();
+        }
+        nodes.clear();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId, String ddlAuto) {
+        return new SpringApplicationBuilder(LibraryApplication.class, NodeConfig.class)
+                .profiles("test")
+                // keeps the nested test configurations of other test classes out of the component scan
+                .initializers(context -> context.getBeanFactory()
+                                .registerSingleton("testConfigurationExcludeFilter", new TestConfigurationExcludeFilter()))
+                .run("--spring.datasource.url=" + DATABASE_URL,
+                        "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "--spring.jpa.show-sql=false",
+                        "--server.port=0",
+                        "--app.digest.node-id=" + nodeId,
+                        "--app.digest.partitions=" + PARTITIONS,
+                        "--app.digest.parallelism=1",
+                        "--app.digest.customer-chunk-size=2",
+                        "--app.digest.lease-duration=2s");
+    }
+
+    @BeforeEach
+    void setUp() {
+        ConfigurableApplicationContext node = nodes.get(0);
+        BookCategory horror = node.getBean(BookCategoryRepository.class)
+                .saveAndFlush(BookCategory.builder().categoryName("Horror").build());
+        node.getBean(BookRepository.class)
+                .save(Book.builder().author("Stephen King").title("IT").category(horror).addedDate(today).build());
+
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = node.getBean(CustomerRepository.class).saveAndFlush(Customer.builder()
+                    .firstName("John")
+                    .lastName("Doe")
+                    .email("customer" + i + "@example.com")
+                    .build());
+            node.getBean(SubscriptionRepository.class).saveAndFlush(Subscription.builder()
+                    .customer(customer)
+                    .author("Nobody")
+                    .category(horror)
+                    .build());
+            customers.add(customer);
+        }
+    }
+
+    @AfterEach
+    void teardown() {
+        ConfigurableApplicationContext node = nodes.get(0);
+        node.getBean(NotificationLedgerRepository.class).deleteAll();
+        node.getBean(DigestPartitionRepository.class).deleteAll();
+        node.getBean(DigestRunRepository.class).deleteAll();
+        node.getBean(SubscriptionRepository.class).deleteAll();
+        node.getBean(BookRepository.class).deleteAll();
+        node.getBean(CustomerRepository.class).deleteAll();
+        node.getBean(BookCategoryRepository.class).deleteAll();
+        for (ConfigurableApplicationContext each : nodes) {
+            each.getBean(FakeMailSender.class).reset();
+            each.getBean(CrashingMailTransport.class).reset();
+        }
+    }
+
+    @Test
+    void nodesFiringTogetherSplitThePartitions() throws Exception {
+        nodes.forEach(node -> node.getBean(FakeMailSender.class).setLatencyMillis(20));
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        List<Future<Optional<DigestRun>>> results = new ArrayList<>();
+        try {
+            for (ConfigurableApplicationContext node : nodes) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return node.getBean(DigestJob.class).run(today);
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<DigestRun>> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEveryCustomerNotifiedExactlyOnce();
+        DigestRun run = runOfToday();
+        assertEquals(DigestRunStatus.COMPLETED, run.getStatus());
+        assertEquals(CUSTOMERS, run.getSent());
+
+        List<DigestPartition> partitions = partitionsOf(run);
+        assertEquals(PARTITIONS, partitions.size());
+        assertTrue(partitions.stream().allMatch(partition -> partition.getStatus() == DigestRunStatus.COMPLETED));
+        assertTrue(partitions.stream().map(DigestPartition::getOwner).distinct().count() > 1,
+                "Expected the partitions to be spread over several nodes");
+    }
+
+    @Test
+    void partitionOfDeadNodeIsTakenOverOnceItsLeaseRunsOut() throws Exception {
+        nodes.get(0).getBean(CrashingMailTransport.class).crashOnDispatch(2, true);
+        DigestJob survivor = nodes.get(1).getBean(DigestJob.class);
+
+        assertThrows(SimulatedCrash.class, () -> nodes.get(0).getBean(DigestJob.class).run(today));
+
+        DigestPartition abandoned = partitionsOf(runOfToday()).get(0);
+        assertEquals("node-0", abandoned.getOwner());
+        assertEquals(DigestRunStatus.RUNNING, abandoned.getStatus());
+
+        // everything except the partition still leased by the dead node
+        assertEquals(DigestRunStatus.RUNNING, survivor.run(today).orElseThrow().getStatus());
+
+        long untilExpired = LocalDateTime.now().until(abandoned.getLeaseUntil(), ChronoUnit.MILLIS);
+        Thread.sleep(Math.max(0, untilExpired) + 100);
+        DigestRun run = survivor.resume().orElseThrow();
+
+        assertEquals(DigestRunStatus.COMPLETED, run.getStatus());
+        assertEquals("node-1", partitionsOf(run).get(0).getOwner());
+        assertEveryCustomerNotifiedExactlyOnce();
+    }
+
+    private DigestRun runOfToday() {
+        return nodes.get(0).getBean(DigestRunRepository.class).findByRunDate(today).orElseThrow();
+    }
+
+    private List<DigestPartition> partitionsOf(DigestRun run) {
+        return nodes.get(0).getBean(DigestPartitionRepository.class).findByRunIdOrderByPartitionNo(run.getId());
+    }
+
+    private void assertEveryCustomerNotifiedExactlyOnce() {
+        List<String> expected = customers.stream().map(Customer::getEmail).sorted().collect(Collectors.toList());
+        List<String> sent = new ArrayList<>();
+        for (ConfigurableApplicationContext node : nodes) {
+            sent.addAll(node.getBean(FakeMailSender.class).getSentRecipients());
+        }
+        assertEquals(expected, sent.stream().sorted().collect(Collectors.toList()));
+    }
+}
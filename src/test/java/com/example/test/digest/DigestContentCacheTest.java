@@ -0,0 +1,55 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.digest.model.CustomerDigest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DigestContentCacheTest {
+
+    private final BookCategory horror = new BookCategory(1L, "Horror");
+    private final Book it = DigestFixtures.book(10L, "Stephen King", "IT", horror);
+    private final Book carrie = DigestFixtures.book(11L, "Stephen King", "Carrie", horror);
+
+    @Test
+    void rendersEachDistinctSetOfBooksOnce() {
+        AtomicInteger renders = new AtomicInteger();
+        DigestContentCache cache = new DigestContentCache((books, more) -> {
+            renders.incrementAndGet();
+            return books.toString();
+        }, 10);
+
+        String john = cache.render(digest(1L, it, carrie));
+        String jane = cache.render(digest(2L, carrie, it));
+        cache.render(digest(3L, it));
+
+        assertSame(john, jane);
+        assertEquals(2, renders.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1.0 / 3, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedContent() {
+        DigestContentCache cache = new DigestContentCache((books, more) -> books.toString(), 1);
+
+        cache.render(digest(1L, it));
+        cache.render(digest(2L, carrie));
+        cache.render(digest(3L, it));
+
+        assertEquals(0, cache.getHits());
+    }
+
+    private static CustomerDigest digest(Long customerId, Book... books) {
+        CustomerDigest digest = new CustomerDigest(customerId, "customer" + customerId + "@example.com", 10);
+        digest.addBooks(List.of(books), "Stephen King");
+        return digest;
+    }
+}
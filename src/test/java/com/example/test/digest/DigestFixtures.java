@@ -0,0 +1,24 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.digest.model.DigestRecipient;
+
+final class DigestFixtures {
+
+    private DigestFixtures() {
+    }
+
+    static Book book(Long id, String author, String title, BookCategory category) {
+        return Book.builder()
+                .id(id)
+                .author(author)
+                .title(title)
+                .category(category)
+                .build();
+    }
+
+    static DigestRecipient recipient(Long customerId, String email, String author, BookCategory category) {
+        return new DigestRecipient(null, customerId, email, author, category.getId());
+    }
+}
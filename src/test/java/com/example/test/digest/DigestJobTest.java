@@ -0,0 +1,454 @@
+package com.example.test.digest;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.customer.model.Customer;
+import com.example.test.digest.model.DigestPartition;
+import com.example.test.digest.model.DigestRun;
+import com.example.test.digest.model.DigestRunStatus;
+import com.example.test.email.FakeMailSender;
+import com.example.test.email.MailDispatcher;
+import com.example.test.email.MailTransport;
+import com.example.test.email.OutboxMessageRepository;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import com.example.test.subscription.SubscriptionRepository;
+import com.example.test.subscription.model.Subscription;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.digest.customer-chunk-size=2",
+        "app.digest.partitions=1",
+        "app.digest.parallelism=1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@ActiveProfiles("test")
+public class DigestJobTest {
+
+    private static final int CUSTOMERS = 7;
+
+    @Autowired
+    private DigestJob digestJob;
+
+    @Autowired
+    private DigestRunRepository digestRunRepository;
+
+    @Autowired
+    private DigestPartitionRepository digestPartitionRepository;
+
+    @Autowired
+    private NotificationLedgerRepository notificationLedgerRepository;
+
+    @Autowired
+    private NotificationLedger notificationLedger;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private FakeMailSender mailSender;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CrashingMailTransport mailTransport;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    private final LocalDate today = LocalDate.now();
+    private final List<Customer> customers = new ArrayList<>();
+
+    @TestConfiguration
+    static class DigestJobTestConfig {
+        @Bean
+        @Primary
+        FakeMailSender fakeMailSender() {
+            return new FakeMailSender();
+        }
+
+        @Bean
+        @Primary
+        CrashingMailTransport crashingMailTransport(MailDispatcher mailDispatcher) {
+            return new CrashingMailTransport(mailDispatcher);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        BookCategory horror = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Horror").build());
+        bookRepository.save(Book.builder().author("Stephen King").title("IT").category(horror).addedDate(today).build());
+
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = customerRepository.saveAndFlush(Customer.builder()
+                    .firstName("John")
+                    .lastName("Doe")
+                    .email("customer" + i + "@example.com")
+                    .build());
+            subscriptionRepository.saveAndFlush(Subscription.builder()
+                    .customer(customer)
+                    .author("Nobody")
+                    .category(horror)
+                    .build());
+            customers.add(customer);
+        }
+    }
+
+    @AfterEach
+    void teardown() {
+        notificationLedgerRepository.deleteAll();
+        outboxMessageRepository.deleteAll();
+        digestPartitionRepository.deleteAll();
+        digestRunRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        bookRepository.deleteAll();
+        customerRepository.deleteAll();
+        bookCategoryRepository.deleteAll();
+        mailSender.reset();
+        mailTransport.reset();
+    }
+
+    @Test
+    void resumesAfterCrashBetweenDeliveryAndCheckpoint() {
+        mailTransport.crashOnDispatch(2, true);
+
+        assertThrows(SimulatedCrash.class, () -> digestJob.run(today));
+
+        assertEquals(4, mailSender.getSent().size());
+        DigestRun crashed = digestRunRepository.findByRunDate(today).orElseThrow();
+        assertEquals(DigestRunStatus.RUNNING, crashed.getStatus());
+        assertEquals(customers.get(1).getId(), partitionOf(crashed).getLastCustomerId());
+        assertEquals(4, notificationLedgerRepository.count());
+
+        mailTransport.reset();
+        DigestRun resumed = digestJob.run(today).orElseThrow();
+
+        assertEquals(crashed.getId(), resumed.getId());
+        assertEquals(DigestRunStatus.COMPLETED, resumed.getStatus());
+        assertEquals(3, mailTransport.getDispatches());
+        assertEveryCustomerNotifiedExactlyOnce();
+    }
+
+    @Test
+    void resumesAfterCrashBeforeDelivery() {
+        mailTransport.crashOnDispatch(3, false);
+
+        assertThrows(SimulatedCrash.class, () -> digestJob.run(today));
+
+        assertEquals(4, mailSender.getSent().size());
+        assertEquals(customers.get(3).getId(), partitionOf(digestRunRepository.findByRunDate(today).orElseThrow()).getLastCustomerId());
+
+        mailTransport.reset();
+        digestJob.run(today);
+
+        assertEquals(2, mailTransport.getDispatches());
+        assertEveryCustomerNotifiedExactlyOnce();
+    }
+
+    @Test
+    void resumeFinishesAnEarlierDaysRunOnceItsLeaseRunsOut() {
+        LocalDate yesterday = today.minusDays(1);
+        BookCategory horror = bookCategoryRepository.findAll().get(0);
+        bookRepository.save(Book.builder().author("Richard Bachman").title("Thinner").category(horror)
+                .addedDate(yesterday).build());
+        mailTransport.crashOnDispatch(2, false);
+        assertThrows(SimulatedCrash.class, () -> digestJob.run(yesterday));
+        mailTransport.reset();
+
+        DigestPartition partition = partitionOf(digestRunRepository.findByRunDate(yesterday).orElseThrow());
+        partition.setOwner("other-node");
+        digestPartitionRepository.save(partition);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertTrue(digestJob.resume().isEmpty());
+        assertEquals(0, statistics.getEntityStatistics(Book.class.getName()).getLoadCount());
+        assertEquals(0, mailTransport.getDispatches());
+
+        partition = digestPartitionRepository.findById(partition.getId()).orElseThrow();
+        partition.setLeaseUntil(LocalDateTime.now().minusSeconds(1));
+        digestPartitionRepository.save(partition);
+        DigestRun resumed = digestJob.resume().orElseThrow();
+
+        assertEquals(yesterday, resumed.getRunDate());
+        assertEquals(DigestRunStatus.COMPLETED, resumed.getStatus());
+        assertEveryCustomerNotifiedExactlyOnce();
+    }
+
+    @Test
+    void completedRunIsNotRepeated() {
+        digestJob.run(today);
+        digestJob.run(today);
+
+        assertEveryCustomerNotifiedExactlyOnce();
+        DigestRun run = digestRunRepository.findByRunDate(today).orElseThrow();
+        assertEquals(CUSTOMERS, run.getSent());
+        assertEquals(0, run.getFailed());
+    }
+
+    @Test
+    void digestsDeferredByTheGovernorAreCountedApartFromFailures() {
+        mailTransport.deferAll();
+
+        DigestRun run = digestJob.run(today).orElseThrow();
+
+        assertEquals(DigestRunStatus.COMPLETED, run.getStatus());
+        assertEquals(0, run.getSent());
+        assertEquals(CUSTOMERS, run.getDeferred());
+        assertEquals(0, run.getFailed());
+        assertEquals(CUSTOMERS, partitionOf(run).getDeferred());
+        assertEquals(CUSTOMERS, outboxMessageRepository.count());
+    }
+
+    @Test
+    void runReadsRecipientsWithoutLoadingSubscriptionsOrCustomers() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        digestJob.run(today);
+
+        assertEveryCustomerNotifiedExactlyOnce();
+        assertEquals(0, statistics.getEntityStatistics(Subscription.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Customer.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void restartedRunOnlySendsBooksCustomersHaveNotSeen() throws Exception {
+        digestJob.run(today);
+        digestPartitionRepository.deleteAll();
+        digestRunRepository.deleteAll();
+        mailSender.reset();
+
+        digestJob.run(today);
+
+        assertTrue(mailSender.getSent().isEmpty());
+
+        BookCategory horror = bookCategoryRepository.findAll().get(0);
+        bookRepository.save(Book.builder().author("Richard Bachman").title("Thinner").category(horror)
+                .addedDate(today).build());
+        digestPartitionRepository.deleteAll();
+        digestRunRepository.deleteAll();
+
+        digestJob.run(today);
+
+        assertEveryCustomerNotifiedExactlyOnce();
+        for (MimeMessage message : mailSender.getSent()) {
+            String body = bodyOf(message);
+            assertTrue(body.contains("Thinner"));
+            assertFalse(body.contains("Stephen King"));
+        }
+        List<Long> customerIds = customers.stream().map(Customer::getId).toList();
+        NotificationLedger.SentBooks sentBooks = notificationLedger.load(customerIds);
+        assertEquals(CUSTOMERS, sentBooks.size());
+        customerIds.forEach(customerId -> assertTrue(sentBooks.unsent(customerId, bookRepository.findAll()).isEmpty()));
+    }
+
+    @Test
+    void runRecordsEveryCustomerSharingAnAddress() {
+        BookCategory horror = bookCategoryRepository.findAll().get(0);
+        Customer partner = customerRepository.saveAndFlush(Customer.builder()
+                .firstName("Jane")
+                .lastName("Doe")
+                .email(customers.get(0).getEmail())
+                .build());
+        subscriptionRepository.saveAndFlush(Subscription.builder()
+                .customer(partner)
+                .author("Nobody")
+                .category(horror)
+                .build());
+        customers.add(partner);
+
+        digestJob.run(today);
+
+        assertEveryCustomerNotifiedExactlyOnce();
+        List<Long> customerIds = customers.stream().map(Customer::getId).toList();
+        assertEquals(CUSTOMERS + 1, notificationLedger.load(customerIds).size());
+    }
+
+    @Test
+    void runOnlyWalksCustomersSubscribedToTheNewBooks() {
+        BookCategory fantasy = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Fantasy").build());
+        Customer tolkienFan = customerRepository.saveAndFlush(Customer.builder()
+                .firstName("Jane")
+                .lastName("Doe")
+                .email("tolkien.fan@example.com")
+                .build());
+        subscriptionRepository.saveAndFlush(Subscription.builder()
+                .customer(tolkienFan)
+                .author("J.R.R. Tolkien")
+                .category(fantasy)
+                .build());
+
+        DigestRun run = digestJob.run(today).orElseThrow();
+
+        assertEveryCustomerNotifiedExactlyOnce();
+        assertEquals(customers.get(CUSTOMERS - 1).getId(), partitionOf(run).getLastCustomerId());
+    }
+
+    @Test
+    void runFindsSubscribersOfDaysWithMoreAuthorsThanOneInList() {
+        BookCategory fantasy = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Fantasy").build());
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) {
+            books.add(Book.builder().author("Author " + i).title("Title " + i).category(fantasy).addedDate(today).build());
+        }
+        bookRepository.saveAll(books);
+        BookCategory poetry = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Poetry").build());
+        for (String author : List.of("Author 10", "Author 1500", "Author 2499")) {
+            Customer fan = customerRepository.saveAndFlush(Customer.builder()
+                    .firstName("Jane")
+                    .lastName("Doe")
+                    .email(author.replace(' ', '.').toLowerCase() + ".fan@example.com")
+                    .build());
+            subscriptionRepository.saveAndFlush(Subscription.builder()
+                    .customer(fan)
+                    .author(author)
+                    .category(poetry)
+                    .build());
+            customers.add(fan);
+        }
+
+        digestJob.run(today);
+
+        assertEveryCustomerNotifiedExactlyOnce();
+    }
+
+    @Test
+    void runSendsBooksAddedSinceTheLastCompletedRun() throws Exception {
+        LocalDate yesterday = today.minusDays(1);
+        BookCategory horror = bookCategoryRepository.findAll().get(0);
+        bookRepository.save(Book.builder().author("Richard Bachman").title("Thinner").category(horror)
+                .addedDate(yesterday).build());
+        digestJob.run(yesterday);
+        assertEveryCustomerNotifiedExactlyOnce();
+        mailSender.reset();
+
+        // added after yesterday's run went out
+        bookRepository.save(Book.builder().author("Stephen King").title("Carrie").category(horror)
+                .addedDate(yesterday).build());
+        digestJob.run(today);
+
+        assertEveryCustomerNotifiedExactlyOnce();
+        for (MimeMessage message : mailSender.getSent()) {
+            String body = bodyOf(message);
+            assertTrue(body.contains("Carrie"));
+            assertTrue(body.contains("IT"));
+            assertFalse(body.contains("Thinner"));
+        }
+    }
+
+    private static String bodyOf(MimeMessage message) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        message.writeTo(bytes);
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private DigestPartition partitionOf(DigestRun run) {
+        return digestPartitionRepository.findByRunIdOrderByPartitionNo(run.getId()).get(0);
+    }
+
+    private void assertEveryCustomerNotifiedExactlyOnce() {
+        List<String> expected = customers.stream().map(Customer::getEmail).sorted().collect(Collectors.toList());
+        assertEquals(expected, mailSender.getSentRecipients().stream().sorted().collect(Collectors.toList()));
+    }
+
+    static class SimulatedCrash extends RuntimeException {
+        SimulatedCrash() {
+            super("Simulated node crash");
+        }
+    }
+
+    /**
+     * Delegates to the real dispatcher and "kills the node" on the n-th dispatch, either before anything is sent
+     * or right after the chunk was delivered but before the job could save its checkpoint.
+     */
+    static class CrashingMailTransport implements MailTransport {
+        private final MailDispatcher delegate;
+        private int dispatches;
+        private int crashOn;
+        private boolean afterDelivery;
+        private boolean deferAll;
+
+        CrashingMailTransport(MailDispatcher delegate) {
+            this.delegate = delegate;
+        }
+
+        void crashOnDispatch(int dispatch, boolean afterDelivery) {
+            this.crashOn = dispatch;
+            this.afterDelivery = afterDelivery;
+        }
+
+        /**
+         * Defers every email, like the governor does while the circuit is open.
+         */
+        void deferAll() {
+            this.deferAll = true;
+        }
+
+        void reset() {
+            dispatches = 0;
+            crashOn = 0;
+            deferAll = false;
+        }
+
+        int getDispatches() {
+            return dispatches;
+        }
+
+        @Override
+        public void send(OutgoingEmail email) {
+            delegate.send(email);
+        }
+
+        @Override
+        public DispatchReport dispatch(Iterable<OutgoingEmail> emails, DispatchReport report) {
+            boolean crash = ++dispatches == crashOn;
+            if (crash && !afterDelivery) {
+                throw new SimulatedCrash();
+            }
+            if (deferAll) {
+                emails.forEach(email -> report.recordDeferred(email, "Circuit open"));
+                return report;
+            }
+            DispatchReport result = delegate.dispatch(emails, report);
+            if (crash) {
+                throw new SimulatedCrash();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.test.digest;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.customer.model.Customer;
+import com.example.test.digest.model.DigestRun;
+import com.example.test.digest.model.DigestRunStatus;
+import com.example.test.email.FakeMailSender;
+import com.example.test.email.MailDispatcher;
+import com.example.test.email.MailTransport;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import com.example.test.subscription.SubscriptionRepository;
+import com.example.test.subscription.model.Subscription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.digest.customer-chunk-size=2",
+        "app.digest.partitions=8",
+        "app.digest.parallelism=4"})
+@ActiveProfiles("test")
+public class DigestParallelTest {
+
+    private static final int CUSTOMERS = 40;
+
+    @Autowired
+    private DigestJob digestJob;
+
+    @Autowired
+    private DigestRunRepository digestRunRepository;
+
+    @Autowired
+    private DigestPartitionRepository digestPartitionRepository;
+
+    @Autowired
+    private NotificationLedgerRepository notificationLedgerRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private FakeMailSender mailSender;
+
+    @Autowired
+    private ConcurrencyProbe mailTransport;
+
+    private final LocalDate today = LocalDate.now();
+    private final List<String> emails = new ArrayList<>();
+
+    @TestConfiguration
+    static class DigestParallelTestConfig {
+        @Bean
+        @Primary
+        FakeMailSender fakeMailSender() {
+            return new FakeMailSender();
+        }
+
+        @Bean
+        @Primary
+        ConcurrencyProbe concurrencyProbe(MailDispatcher mailDispatcher) {
+            return new ConcurrencyProbe(mailDispatcher);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        BookCategory horror = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Horror").build());
+        bookRepository.save(Book.builder().author("Stephen King").title("IT").category(horror).addedDate(today).build());
+
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = customerRepository.saveAndFlush(Customer.builder()
+                    .firstName("John")
+                    .lastName("Doe")
+                    .email("customer" + i + "@example.com")
+                    .build());
+            subscriptionRepository.saveAndFlush(Subscription.builder()
+                    .customer(customer)
+                    .author("Nobody")
+                    .category(horror)
+                    .build());
+            emails.add(customer.getEmail());
+        }
+        mailSender.setLatencyMillis(50);
+    }
+
+    @AfterEach
+    void teardown() {
+        notificationLedgerRepository.deleteAll();
+        digestPartitionRepository.deleteAll();
+        digestRunRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        bookRepository.deleteAll();
+        customerRepository.deleteAll();
+        bookCategoryRepository.deleteAll();
+        mailSender.reset();
+    }
+
+    @Test
+    void workersProcessPartitionsConcurrentlyAndNotifyEveryCustomerOnce() {
+        DigestRun run = digestJob.run(today).orElseThrow();
+
+        assertEquals(DigestRunStatus.COMPLETED, run.getStatus());
+        assertEquals(CUSTOMERS, run.getSent());
+        assertEquals(emails.stream().sorted().toList(), mailSender.getSentRecipients().stream().sorted().toList());
+        assertTrue(digestPartitionRepository.findByRunIdOrderByPartitionNo(run.getId()).stream()
+                .allMatch(partition -> partition.getStatus() == DigestRunStatus.COMPLETED));
+        assertTrue(mailTransport.getMaxConcurrent() > 1,
+                "Expected several partitions to be dispatched at the same time");
+    }
+
+    /**
+     * Delegates to the real dispatcher and remembers how many dispatches were running at the same time.
+     */
+    static class ConcurrencyProbe implements MailTransport {
+        private final MailDispatcher delegate;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        ConcurrencyProbe(MailDispatcher delegate) {
+            this.delegate = delegate;
+        }
+
+        int getMaxConcurrent() {
+            return maxConcurrent.get();
+        }
+
+        @Override
+        public void send(OutgoingEmail email) {
+            delegate.send(email);
+        }
+
+        @Override
+        public DispatchReport dispatch(Iterable<OutgoingEmail> emails, DispatchReport report) {
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                return delegate.dispatch(emails, report);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.test.digest;
+
+import com.example.test.book.BookRepository;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.config.DatasetConfig;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.dataset.DatasetGenerator;
+import com.example.test.digest.model.DigestRun;
+import com.example.test.email.MailDispatcher;
+import com.example.test.email.MailTransport;
+import com.example.test.email.SinkMailSender;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import com.example.test.subscription.SubscriptionRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end digest throughput against the mail sink: generates customers, subscriptions and books, runs the daily
+ * digest and reports messages/sec, the time until the last message reached the sink, p50/p99 per-message latency
+ * from the moment a digest is rendered and handed to the transport until it reaches the sink, and the heap
+ * high-water mark. Sizes can be overridden with {@code -Ddigest.benchmark.customers=...} and
+ * {@code -Ddigest.benchmark.books=...}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "app.mail.sink.enabled=true",
+        "app.mail.governor.enabled=false",
+        "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+class DigestThroughputBenchmarkTest {
+
+    private static final int CUSTOMERS = Integer.getInteger("digest.benchmark.customers", 20_000);
+    private static final int BOOKS = Integer.getInteger("digest.benchmark.books", 500);
+    private static final int AUTHORS = 2_000;
+    private static final int CATEGORIES = 20;
+
+    @Autowired
+    private DigestJob digestJob;
+
+    @Autowired
+    private DigestRunRepository digestRunRepository;
+
+    @Autowired
+    private DigestPartitionRepository digestPartitionRepository;
+
+    @Autowired
+    private NotificationLedgerRepository notificationLedgerRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private SinkMailSender sink;
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private TimedMailTransport mailTransport;
+
+    private final LocalDate today = LocalDate.now();
+
+    @TestConfiguration
+    static class DigestThroughputBenchmarkConfig {
+        @Bean
+        @Primary
+        TimedMailTransport timedMailTransport(MailDispatcher mailDispatcher) {
+            return new TimedMailTransport(mailDispatcher);
+        }
+    }
+
+    @AfterEach
+    void teardown() {
+        notificationLedgerRepository.deleteAllInBatch();
+        digestPartitionRepository.deleteAllInBatch();
+        digestRunRepository.deleteAllInBatch();
+        subscriptionRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+        bookCategoryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void dailyDigestThroughput() {
+        seed();
+
+        long[] latencies = new long[CUSTOMERS];
+        int[] delivered = new int[1];
+        long[] lastDeliveredAt = new long[1];
+        sink.setDeliveryListener(message -> {
+            long now = System.nanoTime();
+            Long handedOverAt = mailTransport.handedOverAt(recipientOf(message));
+            synchronized (latencies) {
+                latencies[delivered[0]++] = now - handedOverAt;
+                lastDeliveredAt[0] = Math.max(lastDeliveredAt[0], now);
+            }
+        });
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        DigestRun run = digestJob.run(today).orElseThrow();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long heapHighWater = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        long[] sorted = Arrays.copyOf(latencies, delivered[0]);
+        Arrays.sort(sorted);
+
+        System.out.printf("customers=%d books=%d sent=%d connections=%d bytes=%d %.0f msgs/sec " +
+                        "last-delivery=%d ms p50=%.2f ms p99=%.2f ms heap-high-water=%d MB%n",
+                CUSTOMERS, BOOKS, run.getSent(), sink.getConnections(), sink.getBytes(), run.getSent() / seconds,
+                delivered[0] == 0 ? 0 : (lastDeliveredAt[0] - start) / 1_000_000,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, heapHighWater / (1024 * 1024));
+        assertEquals(run.getSent(), sink.getMessages());
+        assertEquals(run.getSent(), sink.getMessages());
+    }
+
+    private void seed() {
+        DatasetConfig spec = new DatasetConfig();
+        spec.setCategories(CATEGORIES);
+        spec.setAuthors(AUTHORS);
+        spec.setBooks(BOOKS);
+        spec.setCustomers(CUSTOMERS);
+        spec.setSubscriptions(CUSTOMERS);
+        spec.setAddedDays(1);
+        datasetGenerator.generate(spec);
+    }
+
+    private static String recipientOf(MimeMessage message) {
+        try {
+            return ((InternetAddress) message.getAllRecipients()[0]).getAddress();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    /**
+     * Delegates to the real dispatcher and notes when each email is handed over, which is right after the digest
+     * mailer rendered it: the digests are rendered lazily as the dispatcher pulls them.
+     */
+    static class TimedMailTransport implements MailTransport {
+        private final MailDispatcher delegate;
+        private final Map<String, Long> handedOverAt = new ConcurrentHashMap<>();
+
+        TimedMailTransport(MailDispatcher delegate) {
+            this.delegate = delegate;
+        }
+
+        Long handedOverAt(String recipient) {
+            return handedOverAt.get(recipient);
+        }
+
+        @Override
+        public void send(OutgoingEmail email) {
+            handedOverAt.put(email.getTo(), System.nanoTime());
+            delegate.send(email);
+        }
+
+        @Override
+        public DispatchReport dispatch(Iterable<OutgoingEmail> emails, DispatchReport report) {
+            return delegate.dispatch(() -> StreamSupport.stream(emails.spliterator(), false)
+                    .peek(email -> handedOverAt.put(email.getTo(), System.nanoTime()))
+                    .iterator(), report);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.test.digest;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.BookService;
+import com.example.test.book.model.CreateBookCommand;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.customer.model.Customer;
+import com.example.test.email.FakeMailSender;
+import com.example.test.subscription.SubscriptionRepository;
+import com.example.test.subscription.model.Subscription;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "app.digest.instant.enabled=true",
+        "app.digest.instant.window=300ms",
+        "app.digest.instant.max-books=3"})
+@ActiveProfiles("test")
+public class NewBookBatcherTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private NewBookBatcher batcher;
+
+    @Autowired
+    private DigestJob digestJob;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private DigestRunRepository digestRunRepository;
+
+    @Autowired
+    private NotificationLedgerRepository notificationLedgerRepository;
+
+    @Autowired
+    private FakeMailSender mailSender;
+
+    private BookCategory horror;
+    private BookCategory fantasy;
+
+    @TestConfiguration
+    static class FakeMailSenderConfig {
+        @Bean
+        @Primary
+        FakeMailSender fakeMailSender() {
+            return new FakeMailSender();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        horror = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Horror").build());
+        fantasy = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Fantasy").build());
+        subscribe("horror.fan@example.com", "Nobody", horror);
+        subscribe("tolkien.fan@example.com", "J.R.R. Tolkien", fantasy);
+    }
+
+    @AfterEach
+    void teardown() {
+        batcher.flush();
+        notificationLedgerRepository.deleteAll();
+        digestRunRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        bookRepository.deleteAll();
+        customerRepository.deleteAll();
+        bookCategoryRepository.deleteAll();
+        mailSender.reset();
+    }
+
+    @Test
+    void booksAddedWithinTheWindowGoOutAsOneDigest() throws Exception {
+        bookService.addBook(new CreateBookCommand("Stephen King", "IT", horror.getId()));
+        bookService.addBook(new CreateBookCommand("Bram Stoker", "Dracula", horror.getId()));
+
+        assertEquals(2, batcher.getPending());
+        awaitTrue(() -> !mailSender.getSent().isEmpty());
+
+        assertEquals(List.of("horror.fan@example.com"), mailSender.getSentRecipients());
+        String content = contentOf(mailSender.getSent().get(0));
+        assertTrue(content.contains("IT"));
+        assertTrue(content.contains("Dracula"));
+        awaitTrue(() -> notificationLedgerRepository.count() == 1);
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTheWindow() {
+        bookService.addBook(new CreateBookCommand("Stephen King", "IT", horror.getId()));
+        bookService.addBook(new CreateBookCommand("J.R.R. Tolkien", "The Hobbit", fantasy.getId()));
+        bookService.addBook(new CreateBookCommand("Bram Stoker", "Dracula", horror.getId()));
+
+        assertEquals(0, batcher.getPending());
+        awaitTrue(() -> mailSender.getSent().size() == 2);
+        assertEquals(List.of("horror.fan@example.com", "tolkien.fan@example.com"),
+                mailSender.getSentRecipients().stream().sorted().toList());
+    }
+
+    @Test
+    void dailyDigestSkipsBooksAlreadyNotified() {
+        bookService.addBook(new CreateBookCommand("Stephen King", "IT", horror.getId()));
+        batcher.flush();
+        assertEquals(1, mailSender.getSent().size());
+
+        digestJob.run(LocalDate.now());
+        assertEquals(1, mailSender.getSent().size());
+    }
+
+    @Test
+    void dailyDigestSendsBooksTheBatchFailedToDeliver() throws Exception {
+        mailSender.reject("horror.fan@example.com");
+        bookService.addBook(new CreateBookCommand("Stephen King", "IT", horror.getId()));
+        batcher.flush();
+        assertTrue(mailSender.getSent().isEmpty());
+
+        mailSender.reset();
+        digestJob.run(LocalDate.now());
+
+        assertEquals(List.of("horror.fan@example.com"), mailSender.getSentRecipients());
+        assertTrue(contentOf(mailSender.getSent().get(0)).contains("IT"));
+    }
+
+    private void subscribe(String email, String author, BookCategory category) {
+        Customer customer = customerRepository.saveAndFlush(Customer.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .email(email)
+                .build());
+        subscriptionRepository.saveAndFlush(Subscription.builder()
+                .customer(customer)
+                .author(author)
+                .category(category)
+                .build());
+    }
+
+    private static String contentOf(MimeMessage message) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
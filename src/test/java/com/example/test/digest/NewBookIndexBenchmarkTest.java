@@ -0,0 +1,93 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.digest.model.DigestRecipient;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares resolving each subscription's books through the {@link NewBookIndex} with the nested loop over every
+ * subscription and every new book the digest used before. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class NewBookIndexBenchmarkTest {
+
+    private static final int SUBSCRIPTIONS = 200_000;
+    private static final int BOOKS = 2_000;
+    private static final int AUTHORS = 50_000;
+    private static final int CATEGORIES = 200;
+
+    @Test
+    void invertedIndexAgainstNestedLoop() {
+        Random random = new Random(42);
+        List<BookCategory> categories = new ArrayList<>();
+        for (long i = 0; i < CATEGORIES; i++) {
+            categories.add(new BookCategory(i, "Category " + i));
+        }
+
+        List<DigestRecipient> recipients = new ArrayList<>(SUBSCRIPTIONS);
+        for (long i = 0; i < SUBSCRIPTIONS; i++) {
+            recipients.add(new DigestRecipient(i, i, "customer" + i + "@example.com",
+                    "Author " + random.nextInt(AUTHORS), categories.get(random.nextInt(CATEGORIES)).getId()));
+        }
+
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (long i = 0; i < BOOKS; i++) {
+            books.add(DigestFixtures.book(i, "Author " + random.nextInt(AUTHORS), "Title " + i,
+                    categories.get(random.nextInt(CATEGORIES))));
+        }
+
+        long start = System.nanoTime();
+        Map<DigestRecipient, Set<Book>> expected = nestedLoop(recipients, books);
+        long nestedLoopMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        NewBookIndex index = new NewBookIndex();
+        books.forEach(index::add);
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        Map<DigestRecipient, Set<Book>> actual = new HashMap<>();
+        for (DigestRecipient recipient : recipients) {
+            List<Book> matched = index.match(recipient);
+            if (!matched.isEmpty()) {
+                actual.put(recipient, new LinkedHashSet<>(matched));
+            }
+        }
+        long matchMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long matches = actual.values().stream().mapToLong(Set::size).sum();
+        System.out.printf("subscriptions=%d books=%d matches=%d nested-loop=%d ms index-build=%d ms index-match=%d ms%n",
+                SUBSCRIPTIONS, BOOKS, matches, nestedLoopMillis, buildMillis, matchMillis);
+
+        assertEquals(expected, actual);
+    }
+
+    private Map<DigestRecipient, Set<Book>> nestedLoop(List<DigestRecipient> recipients, List<Book> books) {
+        Map<DigestRecipient, Set<Book>> result = new HashMap<>();
+        for (DigestRecipient recipient : recipients) {
+            Set<Book> matchedBooks = new LinkedHashSet<>();
+            for (Book book : books) {
+                if (book.getAuthor().equals(recipient.author()) ||
+                        book.getCategory().getId().equals(recipient.categoryId())) {
+                    matchedBooks.add(book);
+                }
+            }
+            if (!matchedBooks.isEmpty()) {
+                result.put(recipient, matchedBooks);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.test.digest;
+
+import com.example.test.book.model.Book;
+import com.example.test.digest.model.NotificationLedgerEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NotificationLedgerTest {
+
+    private NotificationLedgerRepository repository;
+    private NotificationLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(NotificationLedgerRepository.class);
+        ledger = new NotificationLedger(repository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void encodeRoundTripsAndCompressesDenseRanges() {
+        RoaringBitmap bitmap = RoaringBitmap.bitmapOf(3, 70_000, 1_000_000);
+        bitmap.add(10_000L, 20_000L);
+
+        byte[] encoded = NotificationLedger.encode(bitmap);
+
+        assertEquals(bitmap, NotificationLedger.decode(encoded));
+        assertTrue(encoded.length < 100, "10 003 ids took " + encoded.length + " bytes");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordAllMergesWithTheExistingEntriesInOneWrite() {
+        when(repository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(entry(1L, RoaringBitmap.bitmapOf(10))));
+
+        ledger.recordAll(Map.of(1L, List.of(11L, 12L), 2L, List.of(11L)));
+
+        ArgumentCaptor<List<NotificationLedgerEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(saved.capture());
+        Map<Long, RoaringBitmap> written = saved.getValue().stream().collect(Collectors.toMap(
+                NotificationLedgerEntry::getCustomerId, entry -> NotificationLedger.decode(entry.getBookIds())));
+        assertEquals(Map.of(1L, RoaringBitmap.bitmapOf(10, 11, 12), 2L, RoaringBitmap.bitmapOf(11)), written);
+    }
+
+    @Test
+    void recordAllRetriesConcurrentUpdates() {
+        when(repository.findAllById(any())).thenReturn(List.of());
+        when(repository.saveAll(any())).thenThrow(new OptimisticLockingFailureException("stale")).thenReturn(null);
+
+        ledger.recordAll(Map.of(1L, List.of(11L)));
+
+        verify(repository, times(2)).findAllById(any());
+        verify(repository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void unsentDropsBooksAlreadyInTheLedger() {
+        when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(entry(1L, RoaringBitmap.bitmapOf(10))));
+        Book seen = Book.builder().id(10L).build();
+        Book fresh = Book.builder().id(11L).build();
+
+        NotificationLedger.SentBooks sentBooks = ledger.load(List.of(1L, 2L));
+
+        assertEquals(List.of(fresh), sentBooks.unsent(1L, List.of(seen, fresh)));
+        assertEquals(List.of(seen, fresh), sentBooks.unsent(2L, List.of(seen, fresh)));
+    }
+
+    private static NotificationLedgerEntry entry(Long customerId, RoaringBitmap bookIds) {
+        return NotificationLedgerEntry.builder()
+                .customerId(customerId)
+                .bookIds(NotificationLedger.encode(bookIds))
+                .version(0)
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.test.email;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.customer.model.Customer;
+import com.example.test.digest.DigestRunRepository;
+import com.example.test.digest.NotificationLedgerRepository;
+import com.example.test.subscription.SubscriptionRepository;
+import com.example.test.subscription.model.Subscription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class EmailServiceTest {
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private DigestRunRepository digestRunRepository;
+
+    @Autowired
+    private NotificationLedgerRepository notificationLedgerRepository;
+
+    @Autowired
+    private FakeMailSender mailSender;
+
+    @TestConfiguration
+    static class FakeMailSenderConfig {
+        @Bean
+        @Primary
+        FakeMailSender fakeMailSender() {
+            return new FakeMailSender();
+        }
+    }
+
+    private BookCategory horror;
+    private BookCategory fantasy;
+    private BookCategory romance;
+
+    @BeforeEach
+    void setUp() {
+        horror = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Horror").build());
+        fantasy = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Fantasy").build());
+        romance = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Romance").build());
+    }
+
+    @AfterEach
+    void teardown() {
+        notificationLedgerRepository.deleteAll();
+        digestRunRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        bookRepository.deleteAll();
+        customerRepository.deleteAll();
+        bookCategoryRepository.deleteAll();
+        mailSender.reset();
+    }
+
+    @Test
+    void sendDailyBookUpdatesNotifiesOnlyMatchingSubscriptions() {
+        subscribe(customer("author.fan@example.com"), "Stephen King", romance);
+        subscribe(customer("category.fan@example.com"), "Nobody", fantasy);
+        subscribe(customer("unmatched@example.com"), "Nobody", romance);
+
+        addBook("Stephen King", "IT", horror, LocalDate.now());
+        addBook("J.R.R. Tolkien", "The Hobbit", fantasy, LocalDate.now());
+        addBook("Romance Author", "Old Romance", romance, LocalDate.now().minusDays(1));
+
+        emailService.sendDailyBookUpdates();
+
+        assertEquals(List.of("author.fan@example.com", "category.fan@example.com"), sentRecipients());
+    }
+
+    @Test
+    void sendDailyBookUpdatesSendsOneDigestPerCustomer() {
+        Customer customer = customer("many.subscriptions@example.com");
+        subscribe(customer, "Stephen King", romance);
+        subscribe(customer, "Nobody", horror);
+        subscribe(customer, "J.R.R. Tolkien", fantasy);
+
+        addBook("Stephen King", "IT", horror, LocalDate.now());
+        addBook("J.R.R. Tolkien", "The Hobbit", fantasy, LocalDate.now());
+
+        emailService.sendDailyBookUpdates();
+
+        assertEquals(List.of("many.subscriptions@example.com"), sentRecipients());
+    }
+
+    @Test
+    void sendDailyBookUpdatesChunksLargeAuthorLists() {
+        subscribe(customer("late.author.fan@example.com"), "Author 1400", romance);
+
+        for (int i = 0; i < 1500; i++) {
+            addBook("Author " + i, "Title " + i, horror, LocalDate.now());
+        }
+
+        emailService.sendDailyBookUpdates();
+
+        assertEquals(List.of("late.author.fan@example.com"), sentRecipients());
+    }
+
+    @Test
+    void sendDailyBookUpdatesSendsNothingWithoutNewBooks() {
+        subscribe(customer("author.fan@example.com"), "Stephen King", horror);
+
+        emailService.sendDailyBookUpdates();
+
+        assertTrue(mailSender.getSent().isEmpty());
+    }
+
+    private List<String> sentRecipients() {
+        return mailSender.getSentRecipients().stream().sorted().collect(Collectors.toList());
+    }
+
+    private Customer customer(String email) {
+        return customerRepository.saveAndFlush(Customer.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .email(email)
+                .emailConfirmed(true)
+                .build());
+    }
+
+    private void subscribe(Customer customer, String author, BookCategory category) {
+        subscriptionRepository.saveAndFlush(Subscription.builder()
+                .customer(customer)
+                .author(author)
+                .category(category)
+                .build());
+    }
+
+    private void addBook(String author, String title, BookCategory category, LocalDate addedDate) {
+        bookRepository.save(Book.builder()
+                .author(author)
+                .title(title)
+                .category(category)
+                .addedDate(addedDate)
+                .build());
+    }
+}
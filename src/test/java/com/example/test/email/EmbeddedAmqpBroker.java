@@ -0,0 +1,49 @@
+package com.example.test.email;
+
+import org.apache.qpid.server.SystemLauncher;
+import org.apache.qpid.server.model.SystemConfig;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process AMQP 0-9-1 broker (Qpid Broker-J, in-memory store) standing in for RabbitMQ in tests.
+ */
+public class EmbeddedAmqpBroker {
+
+    private final SystemLauncher launcher = new SystemLauncher();
+    private int port;
+
+    public void start() throws Exception {
+        port = freePort();
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("qpid.amqp_port", port);
+        context.put("qpid.work_dir", System.getProperty("java.io.tmpdir") + "/qpid-" + port);
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(SystemConfig.TYPE, "Memory");
+        attributes.put(SystemConfig.INITIAL_CONFIGURATION_LOCATION,
+                EmbeddedAmqpBroker.class.getResource("/qpid-config.json").toExternalForm());
+        attributes.put(SystemConfig.STARTUP_LOGGED_TO_SYSTEM_OUT, false);
+        attributes.put(SystemConfig.CONTEXT, context);
+
+        launcher.startup(attributes);
+    }
+
+    public void stop() {
+        launcher.shutdown();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
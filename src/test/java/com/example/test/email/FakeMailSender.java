@@ -0,0 +1,104 @@
+package com.example.test.email;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the SMTP server: keeps every sent message in memory and can be told to reject recipients.
+ * Like {@link JavaMailSenderImpl}, one {@code send} call counts as one connection and rejected messages are
+ * reported together at the end of the batch.
+ */
+public class FakeMailSender extends JavaMailSenderImpl {
+
+    private final List<MimeMessage> sent = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> rejectedRecipients = Collections.synchronizedSet(new HashSet<>());
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile long latencyMillis;
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+        connections.incrementAndGet();
+        pause();
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        for (MimeMessage message : mimeMessages) {
+            String recipient = recipientOf(message);
+            if (rejectedRecipients.contains(recipient)) {
+                failedMessages.put(message, new SendFailedException("550 Mailbox unavailable: " + recipient));
+            } else {
+                sent.add(message);
+            }
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    public void reject(String recipient) {
+        rejectedRecipients.add(recipient);
+    }
+
+    /**
+     * Makes every {@code send} call take at least this long, like a slow SMTP server.
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void reset() {
+        sent.clear();
+        rejectedRecipients.clear();
+        connections.set(0);
+        latencyMillis = 0;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public List<MimeMessage> getSent() {
+        synchronized (sent) {
+            return new ArrayList<>(sent);
+        }
+    }
+
+    public List<String> getSentRecipients() {
+        List<String> recipients = new ArrayList<>();
+        for (MimeMessage message : getSent()) {
+            recipients.add(recipientOf(message));
+        }
+        return recipients;
+    }
+
+    private void pause() {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static String recipientOf(MimeMessage message) {
+        try {
+            Address[] recipients = message.getAllRecipients();
+            return recipients == null || recipients.length == 0 ? null : recipients[0].toString();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.test.email;
+
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Messages/sec against a local fake SMTP server that charges {@link #HANDSHAKE} per connection.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class MailDispatcherBenchmarkTest {
+
+    private static final int MESSAGES = 2_000;
+    private static final int CONCURRENCY = 4;
+    private static final Duration HANDSHAKE = Duration.ofMillis(20);
+
+    @Test
+    void throughputByBatchSize() throws Exception {
+        List<OutgoingEmail> emails = MailDispatcherTest.emails(MESSAGES);
+
+        for (int batchSize : new int[]{1, 10, 50, 200}) {
+            try (FakeSmtpServer server = new FakeSmtpServer(HANDSHAKE)) {
+                JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+                mailSender.setHost("localhost");
+                mailSender.setPort(server.getPort());
+                MailDispatcher dispatcher = new MailDispatcher(mailSender, MailDispatcherTest.config(CONCURRENCY, batchSize),
+                        MailDispatcherTest.unlimited());
+
+                long start = System.nanoTime();
+                DispatchReport report = dispatcher.dispatch(emails);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                dispatcher.shutdown();
+
+                System.out.printf("batch-size=%d messages=%d connections=%d %.0f msgs/sec%n",
+                        batchSize, report.getSent(), server.getConnections(), report.getSent() / seconds);
+                assertEquals(MESSAGES, report.getSent());
+            }
+        }
+    }
+}
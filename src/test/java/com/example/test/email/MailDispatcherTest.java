@@ -0,0 +1,239 @@
+package com.example.test.email;
+
+import com.example.test.config.MailDispatchConfig;
+import com.example.test.config.MailGovernorConfig;
+import com.example.test.email.governor.SmtpGovernor;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailDispatcherTest {
+
+    private MailDispatcher mailDispatcher;
+
+    @AfterEach
+    void teardown() {
+        mailDispatcher.shutdown();
+    }
+
+    @Test
+    void dispatchReportsFailuresWithoutAbortingTheRun() {
+        FakeMailSender mailSender = new FakeMailSender();
+        mailSender.reject("broken@example.com");
+        mailDispatcher = new MailDispatcher(mailSender, config(3, 10), unlimited());
+
+        DispatchReport report = mailDispatcher.dispatch(List.of(
+                email("first@example.com"),
+                email("broken@example.com"),
+                email("last@example.com")));
+
+        assertEquals(2, report.getSent());
+        assertEquals(1, report.getFailed());
+        assertEquals("broken@example.com", report.getFailures().get(0).getTo());
+        assertEquals(1, mailSender.getConnections());
+    }
+
+    @Test
+    void dispatchReusesEncodedBodyAndChangesOnlyTheRecipient() throws Exception {
+        FakeMailSender mailSender = new FakeMailSender();
+        mailDispatcher = new MailDispatcher(mailSender, config(1, 10), unlimited());
+        String sharedDigest = "<p>IT by Stephen King</p>";
+
+        DispatchReport report = mailDispatcher.dispatch(List.of(
+                new OutgoingEmail("john.doe@example.com", "New Books in Our Store!", sharedDigest),
+                new OutgoingEmail("jane.doe@example.com", "New Books in Our Store!", sharedDigest),
+                new OutgoingEmail("other@example.com", "New Books in Our Store!", "<p>Dune</p>")));
+
+        assertEquals(3, report.getSent());
+        assertEquals(List.of("john.doe@example.com", "jane.doe@example.com", "other@example.com"),
+                mailSender.getSentRecipients());
+        List<MimeMessage> sent = mailSender.getSent();
+        for (MimeMessage message : sent) {
+            assertEquals(1, message.getAllRecipients().length);
+        }
+        assertTrue(contentOf(sent.get(1)).contains(sharedDigest));
+        assertNull(sent.get(1).getMessageID());
+        assertEquals("New Books in Our Store!", sent.get(1).getSubject());
+    }
+
+    @Test
+    void dispatchNeverExceedsConfiguredConcurrency() {
+        JavaMailSender mailSender = mockMailSender();
+        mailDispatcher = new MailDispatcher(mailSender, config(3, 5), unlimited());
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            active.decrementAndGet();
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        DispatchReport report = mailDispatcher.dispatch(emails(50));
+
+        assertEquals(50, report.getSent());
+        assertTrue(maxActive.get() <= 3, "max concurrent sends was " + maxActive.get());
+    }
+
+    @Test
+    void dispatchRetriesTransientFailuresOnNewConnection() {
+        JavaMailSender mailSender = mockMailSender();
+        mailDispatcher = new MailDispatcher(mailSender, config(1, 10), unlimited());
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                MimeMessage[] messages = (MimeMessage[]) invocation.getRawArguments()[0];
+                throw new MailSendException(Map.of(messages[1], new MessagingException("421 Connection dropped")));
+            }
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        DispatchReport report = mailDispatcher.dispatch(emails(3));
+
+        assertEquals(3, report.getSent());
+        assertEquals(0, report.getFailed());
+        verify(mailSender, times(2)).send(any(MimeMessage[].class));
+    }
+
+    @Test
+    void dispatchGivesUpAfterReconnectAttempts() {
+        JavaMailSender mailSender = mockMailSender();
+        mailDispatcher = new MailDispatcher(mailSender, config(1, 10), unlimited());
+        doAnswer(invocation -> {
+            throw new MailSendException("Connection refused");
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        DispatchReport report = mailDispatcher.dispatch(emails(2));
+
+        assertEquals(0, report.getSent());
+        assertEquals(2, report.getFailed());
+        verify(mailSender, times(3)).send(any(MimeMessage[].class));
+    }
+
+    @Test
+    void dispatchDefersRecipientsTheServerThrottles() {
+        JavaMailSender mailSender = mockMailSender();
+        mailDispatcher = new MailDispatcher(mailSender, config(1, 10), unlimited());
+        doAnswer(invocation -> {
+            MimeMessage[] messages = (MimeMessage[]) invocation.getRawArguments()[0];
+            throw new MailSendException(Map.of(
+                    messages[0], new SendFailedException("451 Too many messages, slow down"),
+                    messages[1], new SendFailedException("550 Mailbox unavailable")));
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        DispatchReport report = mailDispatcher.dispatch(emails(3));
+
+        assertEquals(1, report.getSent());
+        assertEquals(1, report.getFailed());
+        assertEquals(1, report.getDeferredCount());
+        assertEquals(1, report.getDeferred().size());
+        assertTrue(report.getDeferred().get(0).getTo().startsWith("customer0"));
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+    }
+
+    @Test
+    void dispatchDefersBatchesWithoutContactingTheServerWhileCircuitIsOpen() {
+        JavaMailSender mailSender = mockMailSender();
+        MailGovernorConfig governorConfig = new MailGovernorConfig();
+        governorConfig.setFailureThreshold(1);
+        governorConfig.setMaxRate(1_000_000);
+        governorConfig.setInitialRate(1_000_000);
+        mailDispatcher = new MailDispatcher(mailSender, config(1, 10),
+                new SmtpGovernor(governorConfig, new SimpleMeterRegistry()));
+        doAnswer(invocation -> {
+            throw new MailSendException("Connection refused");
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        DispatchReport first = mailDispatcher.dispatch(emails(2));
+        DispatchReport second = mailDispatcher.dispatch(emails(2));
+
+        // the failed send opens the circuit, so even the reconnect attempt of the first batch is deferred
+        assertEquals(2, first.getDeferred().size());
+        assertEquals(0, first.getFailed());
+        assertEquals(2, second.getDeferred().size());
+        assertEquals(0, second.getFailed());
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+    }
+
+    @Test
+    void dispatchOpensOneSmtpConnectionPerBatch() throws Exception {
+        try (FakeSmtpServer server = new FakeSmtpServer(Duration.ZERO)) {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(server.getPort());
+            mailDispatcher = new MailDispatcher(mailSender, config(2, 10), unlimited());
+
+            DispatchReport report = mailDispatcher.dispatch(emails(25));
+
+            assertEquals(25, report.getSent());
+            assertEquals(25, server.getMessages());
+            assertEquals(3, server.getConnections());
+        }
+    }
+
+    static MailDispatchConfig config(int concurrency, int batchSize) {
+        MailDispatchConfig config = new MailDispatchConfig();
+        config.setConcurrency(concurrency);
+        config.setQueueCapacity(2);
+        config.setBatchSize(batchSize);
+        config.setReconnectBackoff(Duration.ZERO);
+        return config;
+    }
+
+    static SmtpGovernor unlimited() {
+        MailGovernorConfig config = new MailGovernorConfig();
+        config.setEnabled(false);
+        return new SmtpGovernor(config, new SimpleMeterRegistry());
+    }
+
+    static List<OutgoingEmail> emails(int count) {
+        List<OutgoingEmail> emails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            emails.add(email("customer" + i + "@example.com"));
+        }
+        return emails;
+    }
+
+    private static OutgoingEmail email(String to) {
+        return new OutgoingEmail(to, "New Books in Our Store!", "<p>Hello</p>");
+    }
+
+    private static String contentOf(MimeMessage message) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static JavaMailSender mockMailSender() {
+        JavaMailSender mailSender = Mockito.mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        return mailSender;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.test.email;
+
+import com.example.test.config.MailQueueConfig;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.customer.CustomerService;
+import com.example.test.customer.model.CreateCustomerCommand;
+import com.example.test.email.model.OutgoingEmail;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mailqueuetest;DB_CLOSE_DELAY=-1",
+        "app.mail.transport=rabbit",
+        "app.mail.queue.listener-enabled=true",
+        "app.mail.queue.batch-size=10",
+        "app.mail.queue.prefetch=20",
+        // Qpid's name for RabbitMQ's x-dead-letter-exchange
+        "app.mail.queue.dead-letter-argument=alternateExchange"})
+@ActiveProfiles("test")
+@DirtiesContext
+public class MailQueueIntegrationTest {
+
+    private static final EmbeddedAmqpBroker broker = new EmbeddedAmqpBroker();
+
+    @Autowired
+    private MailTransport mailTransport;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private MailQueueConfig config;
+
+    @Autowired
+    private FakeMailSender mailSender;
+
+    @TestConfiguration
+    static class FakeMailSenderConfig {
+        @Bean
+        @Primary
+        FakeMailSender fakeMailSender() {
+            return new FakeMailSender();
+        }
+    }
+
+    @DynamicPropertySource
+    static void brokerProperties(DynamicPropertyRegistry registry) throws Exception {
+        broker.start();
+        registry.add("spring.rabbitmq.host", () -> "localhost");
+        registry.add("spring.rabbitmq.port", broker::getPort);
+        registry.add("spring.rabbitmq.username", () -> "guest");
+        registry.add("spring.rabbitmq.password", () -> "guest");
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.stop();
+    }
+
+    @AfterEach
+    void teardown() {
+        outboxMessageRepository.deleteAll();
+        customerRepository.deleteAll();
+        mailSender.reset();
+    }
+
+    @Test
+    void publishedEmailsAreDeliveredByTheListenerInBatches() {
+        assertInstanceOf(RabbitMailTransport.class, mailTransport);
+
+        List<OutgoingEmail> emails = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            emails.add(new OutgoingEmail("customer" + i + "@example.com", "New Books in Our Store!", "<p>" + i + "</p>"));
+        }
+
+        assertEquals(25, mailTransport.dispatch(emails).getSent());
+
+        awaitTrue(() -> mailSender.getSent().size() == 25);
+        assertEquals(25, mailSender.getSentRecipients().stream().distinct().count());
+    }
+
+    @Test
+    void outboxRelaysConfirmationEmailsThroughTheQueue() {
+        customerService.registerCustomer(CreateCustomerCommand.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .email("john.doe@example.com")
+                .build());
+
+        assertEquals(1, outboxDispatcher.drain());
+        assertEquals(0, outboxMessageRepository.count());
+
+        awaitTrue(() -> mailSender.getSentRecipients().contains("john.doe@example.com"));
+    }
+
+    @Test
+    void rejectedEmailsAreDeadLettered() {
+        mailSender.reject("broken@example.com");
+
+        mailTransport.send(new OutgoingEmail("broken@example.com", "New Books in Our Store!", "<p>Hello</p>"));
+        mailTransport.send(new OutgoingEmail("john.doe@example.com", "New Books in Our Store!", "<p>Hello</p>"));
+
+        Message deadLetter = rabbitTemplate.receive(config.getDeadLetterQueue(), 10_000);
+
+        assertNotNull(deadLetter);
+        OutgoingEmail email = (OutgoingEmail) rabbitTemplate.getMessageConverter().fromMessage(deadLetter);
+        assertEquals("broken@example.com", email.getTo());
+        assertTrue(deadLetter.getMessageProperties().getHeader(MailQueueListener.FAILURE_REASON_HEADER)
+                .toString().contains("Mailbox unavailable"));
+        awaitTrue(() -> mailSender.getSentRecipients().contains("john.doe@example.com"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
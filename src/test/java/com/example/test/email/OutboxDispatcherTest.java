@@ -0,0 +1,151 @@
+package com.example.test.email;
+
+import com.example.test.customer.CustomerRepository;
+import com.example.test.customer.CustomerService;
+import com.example.test.customer.model.CreateCustomerCommand;
+import com.example.test.email.model.OutboxMessage;
+import com.example.test.email.model.OutboxStatus;
+import com.example.test.email.model.OutgoingEmail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"app.mail.outbox.max-attempts=2", "app.mail.outbox.retry-backoff=0s"})
+@ActiveProfiles("test")
+public class OutboxDispatcherTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private FakeMailSender mailSender;
+
+    @Autowired
+    private MailOutbox mailOutbox;
+
+    @TestConfiguration
+    static class FakeMailSenderConfig {
+        @Bean
+        @Primary
+        FakeMailSender fakeMailSender() {
+            return new FakeMailSender();
+        }
+    }
+
+    @AfterEach
+    void teardown() {
+        outboxMessageRepository.deleteAll();
+        customerRepository.deleteAll();
+        mailSender.reset();
+    }
+
+    @Test
+    void registerCustomerWritesOutboxInsteadOfSending() {
+        customerService.registerCustomer(command("john.doe@example.com"));
+
+        assertTrue(mailSender.getSent().isEmpty());
+        List<OutboxMessage> pending = outboxMessageRepository.findAll();
+        assertEquals(1, pending.size());
+        assertEquals("john.doe@example.com", pending.get(0).getRecipient());
+        assertEquals(OutboxStatus.PENDING, pending.get(0).getStatus());
+    }
+
+    @Test
+    void drainSendsPendingMessagesAndRemovesThem() {
+        customerService.registerCustomer(command("john.doe@example.com"));
+        customerService.registerCustomer(command("jane.doe@example.com"));
+
+        int sent = outboxDispatcher.drain();
+
+        assertEquals(2, sent);
+        assertEquals(List.of("john.doe@example.com", "jane.doe@example.com"), mailSender.getSentRecipients());
+        assertEquals(0, outboxMessageRepository.count());
+    }
+
+    @Test
+    void drainRetriesAndFinallyMarksMessageAsFailed() {
+        mailSender.reject("broken@example.com");
+        customerService.registerCustomer(command("broken@example.com"));
+        customerService.registerCustomer(command("john.doe@example.com"));
+
+        assertEquals(1, outboxDispatcher.drain());
+        assertEquals(OutboxStatus.PENDING, outboxMessageRepository.findAll().get(0).getStatus());
+
+        assertEquals(0, outboxDispatcher.drain());
+        assertEquals(List.of("john.doe@example.com"), mailSender.getSentRecipients());
+        OutboxMessage failed = outboxMessageRepository.findAll().get(0);
+        assertEquals(OutboxStatus.FAILED, failed.getStatus());
+        assertEquals(2, failed.getAttempts());
+        assertTrue(failed.getLastError().contains("Mailbox unavailable"));
+    }
+
+    @Test
+    void drainSettlesIdenticalMessagesOneByOne() {
+        mailOutbox.enqueue(new OutgoingEmail("john.doe@example.com", "Reminder", "<p>Same body</p>"));
+        mailOutbox.enqueue(new OutgoingEmail("john.doe@example.com", "Reminder", "<p>Same body</p>"));
+        mailSender.reject("broken@example.com");
+        mailOutbox.enqueue(new OutgoingEmail("broken@example.com", "Reminder", "<p>Same body</p>"));
+        mailOutbox.enqueue(new OutgoingEmail("broken@example.com", "Reminder", "<p>Same body</p>"));
+
+        assertEquals(2, outboxDispatcher.drain());
+
+        assertEquals(List.of("john.doe@example.com", "john.doe@example.com"), mailSender.getSentRecipients());
+        List<OutboxMessage> failed = outboxMessageRepository.findAll();
+        assertEquals(2, failed.size());
+        for (OutboxMessage message : failed) {
+            assertEquals("broken@example.com", message.getRecipient());
+            assertEquals(1, message.getAttempts());
+            assertNull(message.getOwner());
+        }
+    }
+
+    @Test
+    void drainSkipsMessagesLeasedByAnotherDispatcherUntilTheLeaseRunsOut() {
+        customerService.registerCustomer(command("john.doe@example.com"));
+        customerService.registerCustomer(command("jane.doe@example.com"));
+        List<Long> ids = outboxMessageRepository.findAll().stream().map(OutboxMessage::getId).toList();
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(1, outboxMessageRepository.claim(List.of(ids.get(0)), "other-node", now, now.plusMinutes(5),
+                OutboxStatus.PENDING));
+
+        assertEquals(1, outboxDispatcher.drain());
+        assertEquals(List.of("jane.doe@example.com"), mailSender.getSentRecipients());
+
+        OutboxMessage leased = outboxMessageRepository.findById(ids.get(0)).orElseThrow();
+        leased.setLeaseUntil(now.minusSeconds(1));
+        outboxMessageRepository.save(leased);
+
+        assertEquals(1, outboxDispatcher.drain());
+        assertEquals(List.of("jane.doe@example.com", "john.doe@example.com"), mailSender.getSentRecipients());
+        assertEquals(0, outboxMessageRepository.count());
+    }
+
+    private CreateCustomerCommand command(String email) {
+        return CreateCustomerCommand.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .email(email)
+                .build();
+    }
+}
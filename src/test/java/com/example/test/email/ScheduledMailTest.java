@@ -0,0 +1,207 @@
+package com.example.test.email;
+
+import com.example.test.book.BookRepository;
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import com.example.test.category.BookCategoryRepository;
+import com.example.test.customer.CustomerRepository;
+import com.example.test.customer.CustomerService;
+import com.example.test.customer.model.CreateCustomerCommand;
+import com.example.test.customer.model.Customer;
+import com.example.test.digest.DigestPartitionRepository;
+import com.example.test.digest.DigestRunRepository;
+import com.example.test.digest.NotificationLedgerRepository;
+import com.example.test.email.model.DispatchReport;
+import com.example.test.email.model.OutgoingEmail;
+import com.example.test.subscription.SubscriptionRepository;
+import com.example.test.subscription.model.Subscription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@SpringBootTest(properties = {
+        "app.scheduling.enabled=true",
+        "app.mail.outbox.poll-interval=100",
+        "app.digest.lease-poll-interval=3600000",
+        "app.book.search.catch-up-interval=3600000"})
+@ActiveProfiles("test")
+public class ScheduledMailTest {
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCategoryRepository bookCategoryRepository;
+
+    @Autowired
+    private DigestRunRepository digestRunRepository;
+
+    @Autowired
+    private DigestPartitionRepository digestPartitionRepository;
+
+    @Autowired
+    private NotificationLedgerRepository notificationLedgerRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private FakeMailSender mailSender;
+
+    @Autowired
+    private DigestHoldingMailTransport mailTransport;
+
+    @TestConfiguration
+    static class ScheduledMailTestConfig {
+        @Bean
+        @Primary
+        FakeMailSender fakeMailSender() {
+            return new FakeMailSender();
+        }
+
+        @Bean
+        @Primary
+        DigestHoldingMailTransport digestHoldingMailTransport(MailDispatcher mailDispatcher) {
+            return new DigestHoldingMailTransport(mailDispatcher);
+        }
+    }
+
+    @AfterEach
+    void teardown() {
+        mailTransport.release();
+        notificationLedgerRepository.deleteAll();
+        digestPartitionRepository.deleteAll();
+        digestRunRepository.deleteAll();
+        outboxMessageRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        bookRepository.deleteAll();
+        customerRepository.deleteAll();
+        bookCategoryRepository.deleteAll();
+        mailSender.reset();
+    }
+
+    @Test
+    void outboxDrainsWhileTheDailyDigestIsRunning() {
+        BookCategory horror = bookCategoryRepository.saveAndFlush(BookCategory.builder().categoryName("Horror").build());
+        bookRepository.save(Book.builder().author("Stephen King").title("IT").category(horror)
+                .addedDate(LocalDate.now()).build());
+        Customer subscriber = customerRepository.saveAndFlush(Customer.builder()
+                .firstName("Jane")
+                .lastName("Doe")
+                .email("jane.doe@example.com")
+                .build());
+        subscriptionRepository.saveAndFlush(Subscription.builder()
+                .customer(subscriber)
+                .author("Stephen King")
+                .category(horror)
+                .build());
+
+        taskScheduler.schedule(emailService::sendDailyBookUpdates, Instant.now());
+        awaitTrue(mailTransport::isHoldingDigest);
+
+        customerService.registerCustomer(CreateCustomerCommand.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .email("john.doe@example.com")
+                .build());
+
+        awaitTrue(() -> mailSender.getSentRecipients().contains("john.doe@example.com"));
+        assertTrue(mailTransport.isHoldingDigest());
+
+        mailTransport.release();
+        awaitTrue(() -> mailSender.getSentRecipients().contains("jane.doe@example.com"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 10 seconds");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delegates to the real dispatcher but holds digest batches until released, like a digest run that takes hours.
+     */
+    static class DigestHoldingMailTransport implements MailTransport {
+        private final MailDispatcher delegate;
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean holdingDigest;
+
+        DigestHoldingMailTransport(MailDispatcher delegate) {
+            this.delegate = delegate;
+        }
+
+        boolean isHoldingDigest() {
+            return holdingDigest;
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        @Override
+        public void send(OutgoingEmail email) {
+            delegate.send(email);
+        }
+
+        @Override
+        public DispatchReport dispatch(Iterable<OutgoingEmail> emails, DispatchReport report) {
+            List<OutgoingEmail> batch = new ArrayList<>();
+            emails.forEach(batch::add);
+            if (batch.stream().anyMatch(email -> EmailService.NEW_BOOKS_SUBJECT.equals(email.getSubject()))) {
+                holdingDigest = true;
+                try {
+                    if (!released.await(30, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Digest was never released");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } finally {
+                    holdingDigest = false;
+                }
+            }
+            return delegate.dispatch(batch, report);
+        }
+    }
+}
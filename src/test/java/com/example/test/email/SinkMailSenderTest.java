@@ -0,0 +1,62 @@
+package com.example.test.email;
+
+import com.example.test.config.MailSinkConfig;
+import com.example.test.email.model.DispatchReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SinkMailSenderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesEveryDispatchedMessageAsEmlFile() throws IOException {
+        MailSinkConfig config = new MailSinkConfig();
+        config.setDirectory(directory.toString());
+        SinkMailSender sink = new SinkMailSender(config);
+        AtomicInteger delivered = new AtomicInteger();
+        sink.setDeliveryListener(message -> delivered.incrementAndGet());
+        MailDispatcher dispatcher = new MailDispatcher(sink, MailDispatcherTest.config(2, 10), MailDispatcherTest.unlimited());
+
+        DispatchReport report = dispatcher.dispatch(MailDispatcherTest.emails(25));
+        dispatcher.shutdown();
+
+        assertEquals(25, report.getSent());
+        assertEquals(25, sink.getMessages());
+        assertEquals(25, delivered.get());
+        assertEquals(3, sink.getConnections());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(25, files.count());
+        }
+        String first = Files.readString(directory.resolve("1.eml"));
+        assertTrue(first.contains("To: "));
+        assertEquals(sink.getBytes(), totalSize(directory));
+    }
+
+    @Test
+    void onlyCountsWithoutDirectory() {
+        SinkMailSender sink = new SinkMailSender(new MailSinkConfig());
+        MailDispatcher dispatcher = new MailDispatcher(sink, MailDispatcherTest.config(1, 5), MailDispatcherTest.unlimited());
+
+        dispatcher.dispatch(MailDispatcherTest.emails(5));
+        dispatcher.shutdown();
+
+        assertEquals(5, sink.getMessages());
+        assertTrue(sink.getBytes() > 0);
+    }
+
+    private static long totalSize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.test.email.governor;
+
+import com.example.test.config.MailGovernorConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpGovernorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private long now;
+    private SmtpGovernor governor;
+
+    @BeforeEach
+    void setUp() {
+        MailGovernorConfig config = new MailGovernorConfig();
+        config.setInitialRate(10);
+        config.setMinRate(1);
+        config.setMaxRate(12);
+        config.setRateIncrease(1);
+        config.setRateDecreaseFactor(0.5);
+        config.setBurst(5);
+        config.setFailureThreshold(2);
+        config.setOpenDuration(Duration.ofSeconds(30));
+        governor = new SmtpGovernor(config, meterRegistry, () -> now, nanos -> now += nanos);
+    }
+
+    @Test
+    void acquirePacesSendsBeyondTheBurst() {
+        long start = now;
+
+        governor.acquire(5);
+        governor.acquire(5);
+        assertEquals(0, now - start);
+
+        governor.acquire(1);
+        assertEquals(Duration.ofMillis(500).toNanos(), now - start);
+    }
+
+    @Test
+    void rateGrowsAdditivelyAndShrinksMultiplicatively() {
+        governor.recordSuccess();
+        governor.recordSuccess();
+        governor.recordSuccess();
+        assertEquals(12, governor.getRate());
+
+        governor.recordFailure(new MailSendException("451 4.7.1 Try again later"));
+        assertEquals(6, governor.getRate());
+        assertEquals(6, meterRegistry.get("mail.smtp.rate").gauge().value());
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndLetsOneTrialThroughLater() {
+        governor.recordFailure(new MailSendException("Connection refused"));
+        governor.recordFailure(new MailSendException("Connection refused"));
+
+        assertEquals(CircuitState.OPEN, governor.getState());
+        assertFalse(governor.acquire(1));
+        assertEquals(1, meterRegistry.get("mail.smtp.rejected").counter().count());
+        assertEquals(2, meterRegistry.get("mail.smtp.circuit.state").gauge().value());
+
+        now += Duration.ofSeconds(30).toNanos();
+        assertTrue(governor.acquire(1));
+        assertEquals(CircuitState.HALF_OPEN, governor.getState());
+        assertFalse(governor.acquire(1));
+
+        governor.recordSuccess();
+        assertEquals(CircuitState.CLOSED, governor.getState());
+        assertTrue(governor.acquire(1));
+    }
+
+    @Test
+    void failedTrialOpensTheCircuitAgain() {
+        governor.recordFailure(new MailSendException("Connection refused"));
+        governor.recordFailure(new MailSendException("Connection refused"));
+        now += Duration.ofSeconds(30).toNanos();
+        governor.acquire(1);
+
+        governor.recordFailure(new MailSendException("Connection refused"));
+
+        assertEquals(CircuitState.OPEN, governor.getState());
+        assertEquals(Duration.ofSeconds(30), governor.getRetryAfter());
+    }
+
+    @Test
+    void rejectedRecipientsDoNotCountAgainstTheServer() {
+        MailSendException rejected = new MailSendException(Map.of(new Object(),
+                new SendFailedException("550 5.1.1 Mailbox unavailable")));
+
+        governor.recordFailure(rejected);
+        governor.recordFailure(rejected);
+
+        assertEquals(CircuitState.CLOSED, governor.getState());
+        assertEquals(12, governor.getRate());
+    }
+
+    @Test
+    void transientRepliesAndTimeoutsAreThrottling() {
+        assertTrue(SmtpGovernor.isThrottling(new MessagingException("421 4.7.0 Too many connections")));
+        assertTrue(SmtpGovernor.isThrottling(new MailSendException(Map.of(new Object(),
+                new SendFailedException("452 4.5.3 Too many recipients")))));
+        assertTrue(SmtpGovernor.isThrottling(new MessagingException("Read failed", new SocketTimeoutException())));
+        assertFalse(SmtpGovernor.isThrottling(new MessagingException("550 5.1.1 Mailbox unavailable")));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.test.email.template;
+
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the precompiled templates with the {@code StringBuilder} code they replaced.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmailTemplatesBenchmarkTest {
+
+    @Param({"1", "10", "500"})
+    public int bookCount;
+
+    private List<Book> books;
+    private EmailTemplates emailTemplates;
+
+    @Setup
+    public void setUp() {
+        emailTemplates = new EmailTemplates();
+        BookCategory category = new BookCategory(1L, "Fantasy & Science Fiction");
+        books = new ArrayList<>(bookCount);
+        for (long i = 0; i < bookCount; i++) {
+            books.add(Book.builder()
+                    .id(i)
+                    .title(i % 10 == 0 ? "Pride & Prejudice, vol. " + i : "Przedwiośnie, vol. " + i)
+                    .author("Stefan Żeromski")
+                    .category(category)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public String stringBuilder() {
+        StringBuilder content = new StringBuilder();
+
+        content.append("<div style='font-family: Arial, sans-serif; padding: 20px; background-color: #f7f7f7;'>");
+        content.append("<h1 style='color: #2E86C1;'>New Books in Our Store!</h1>");
+        content.append("<hr style='border: none; border-bottom: 1px solid #ddd;'>");
+
+        for (Book book : books) {
+            content.append("<p><strong>").append(book.getTitle()).append("</strong> by ").append(book.getAuthor())
+                    .append(" in category ").append(book.getCategory().getCategoryName()).append("</p>");
+        }
+
+        content.append("<p>Best Regards,<br>Your App Team</p>");
+        content.append("</div>");
+
+        return content.toString();
+    }
+
+    @Benchmark
+    public String precompiledTemplate() {
+        return emailTemplates.newBooks(books);
+    }
+
+    @Test
+    void compareWithStringBuilder() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(getClass().getName())
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.test.email.template;
+
+import com.example.test.book.model.Book;
+import com.example.test.category.BookCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailTemplatesTest {
+
+    private final EmailTemplates emailTemplates = new EmailTemplates();
+
+    @Test
+    void newBooksEscapesBookFieldsAndShowsCategoryName() {
+        Book book = Book.builder()
+                .title("<script>alert(1)</script>")
+                .author("Tom & Jerry")
+                .category(new BookCategory(1L, "Horror"))
+                .build();
+
+        String html = emailTemplates.newBooks(List.of(book));
+
+        assertTrue(html.contains("<strong>&lt;script&gt;alert(1)&lt;/script&gt;</strong> by Tom &amp; Jerry in category Horror"));
+        assertFalse(html.contains("<script>"));
+        assertFalse(html.contains("more new books"));
+    }
+
+    @Test
+    void newBooksSummarisesBooksLeftOut() {
+        Book book = Book.builder().title("IT").author("Stephen King").build();
+
+        String html = emailTemplates.newBooks(List.of(book), 1234);
+
+        assertTrue(html.contains("<strong>IT</strong> by Stephen King"));
+        assertTrue(html.contains("...and 1234 more new books matching your subscriptions."));
+    }
+
+    @Test
+    void confirmationContainsLink() {
+        String html = emailTemplates.confirmation("http://localhost:8080/api/customers/confirm-email?token=abc");
+
+        assertTrue(html.contains("href=\"http://localhost:8080/api/customers/confirm-email?token=abc\""));
+        assertTrue(html.contains("Potwierdź Email"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.test.email.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlTemplateTest {
+
+    @Test
+    void renderEscapesSlotValues() {
+        HtmlTemplate template = HtmlTemplate.compile("<p title=\"{{title}}\">{{title}}</p>");
+
+        assertEquals("<p title=\"&lt;b&gt; &amp; &quot;x&quot; &#39;y&#39;\">&lt;b&gt; &amp; &quot;x&quot; &#39;y&#39;</p>",
+                render(template, "<b> & \"x\" 'y'"));
+    }
+
+    @Test
+    void renderKeepsNonAsciiText() {
+        HtmlTemplate template = HtmlTemplate.compile("Zażółć {{name}}");
+
+        assertEquals("Zażółć gęślą jaźń \uD83D\uDCDA", render(template, "gęślą jaźń \uD83D\uDCDA"));
+    }
+
+    @Test
+    void renderRepeatsSectionPerRow() {
+        HtmlTemplate template = HtmlTemplate.compile("<h1>{{heading}}</h1>{{#books}}<li>{{title}} by {{author}}</li>{{/books}}<hr>");
+
+        String html = render(template, "New", List.of(
+                new Object[]{"IT", "Stephen King"},
+                new Object[]{"Dune", null}));
+
+        assertEquals(List.of("heading", "books"), template.getSlots());
+        assertEquals("<h1>New</h1><li>IT by Stephen King</li><li>Dune by </li><hr>", html);
+    }
+
+    @Test
+    void compileRejectsUnbalancedSections() {
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("{{#books}}<li>"));
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("<li>{{/books}}"));
+        assertThrows(IllegalArgumentException.class, () -> HtmlTemplate.compile("<li>{{title</li>"));
+    }
+
+    @Test
+    void renderRejectsWrongNumberOfValues() {
+        HtmlTemplate template = HtmlTemplate.compile("{{a}}{{b}}");
+
+        assertThrows(IllegalArgumentException.class, () -> render(template, "only one"));
+    }
+
+    @Test
+    void poolReusesBuffersButDropsOversizedOnes() {
+        HtmlBufferPool pool = new HtmlBufferPool(2, 16, 64);
+
+        HtmlBuffer small = pool.acquire();
+        small.writeEscaped("hello");
+        pool.release(small);
+        HtmlBuffer reused = pool.acquire();
+
+        assertSame(small, reused);
+        assertEquals(0, reused.length());
+
+        reused.writeEscaped("x".repeat(100));
+        pool.release(reused);
+        assertEquals(0, pool.available());
+    }
+
+    private static String render(HtmlTemplate template, Object... values) {
+        HtmlBuffer buffer = new HtmlBuffer(16);
+        template.render(buffer, values);
+        return buffer.toString();
+    }
+}